@@ -0,0 +1,56 @@
+package benchmarks;
+
+import builders.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Building a whole population: a sequential Director loop against BulkPlayerBuilder.
+ * Scores are per batch; divide by count for the cost per player.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BulkConstructionBenchmark {
+
+    @Param({"1000", "100000"})
+    public int count;
+
+    private List<PlayerSpec> specs;
+    private BulkPlayerBuilder bulkBuilder;
+
+    @Setup
+    public void setUp() {
+        specs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = "Player" + i;
+            switch (i % 4) {
+                case 0: specs.add(PlayerSpec.newbie(name)); break;
+                case 1: specs.add(PlayerSpec.warrior(name)); break;
+                case 2: specs.add(PlayerSpec.mage(name)); break;
+                default: specs.add(PlayerSpec.questGiver(name, "Quest" + i));
+            }
+        }
+        bulkBuilder = new BulkPlayerBuilder();
+    }
+
+    @Benchmark
+    public void sequential(Blackhole blackhole) {
+        PlayerDirector director = new PlayerDirector();
+        for (PlayerSpec spec : specs) {
+            blackhole.consume(spec.build(director));
+        }
+    }
+
+    @Benchmark
+    public List<Player> bulk() {
+        return bulkBuilder.build(specs).getPlayers();
+    }
+}
@@ -0,0 +1,113 @@
+package benchmarks;
+
+import builders.*;
+import builders.generated.*;
+import java.util.concurrent.TimeUnit;
+import model.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of constructing one object: items, each concrete builder, the generated builders,
+ * pooled builders and the Director recipes. Run with -prof gc to see bytes allocated per player.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ConstructionBenchmark {
+    private final PlayerDirector director = new PlayerDirector();
+    private Weapon sword;
+    private Weapon staff;
+    private Item potion;
+
+    @Setup
+    public void setUp() {
+        sword = new Weapon("Sword", 50, WeaponType.SWORD);
+        staff = new Weapon("Staff", 30, WeaponType.STAFF, true);
+        potion = Item.builder()
+                .name("Health Potion")
+                .itemType(ItemType.CONSUMABLE)
+                .value(25)
+                .weight(1)
+                .isStackable(true)
+                .build();
+    }
+
+    @Benchmark
+    public Item item() {
+        return Item.builder()
+                .name("Health Potion")
+                .itemType(ItemType.CONSUMABLE)
+                .value(25)
+                .weight(1)
+                .isStackable(true)
+                .build();
+    }
+
+    @Benchmark
+    public Player basicBuilder() {
+        return ((BasicPlayerBuilder) new BasicPlayerBuilder()
+                .name("Hero")
+                .health(150)
+                .addItem(potion))
+                .build();
+    }
+
+    @Benchmark
+    public Player warriorBuilder() {
+        return ((WarriorBuilder) new WarriorBuilder()
+                .name("Aragorn")
+                .addWeapon(sword)
+                .addItem(potion))
+                .build();
+    }
+
+    @Benchmark
+    public Player mageBuilder() {
+        return ((MageBuilder) new MageBuilder()
+                .name("Gandalf")
+                .addWeapon(staff)
+                .addItem(potion))
+                .build();
+    }
+
+    @Benchmark
+    public Player pooledWarriorBuilder() {
+        return ((WarriorBuilder) BuilderPool.warrior()
+                .name("Aragorn")
+                .addWeapon(sword)
+                .addItem(potion))
+                .build();
+    }
+
+    @Benchmark
+    public Player generatedWarriorBuilder() {
+        return new FastWarriorBuilder()
+                .name("Aragorn")
+                .addWeapon(sword)
+                .addItem(potion)
+                .build();
+    }
+
+    @Benchmark
+    public Player directorNewbie() {
+        return director.createNewbie("Alice");
+    }
+
+    @Benchmark
+    public Player directorWarrior() {
+        return director.createWarrior("Conan");
+    }
+
+    @Benchmark
+    public Player directorMage() {
+        return director.createMage("Merlin");
+    }
+
+    @Benchmark
+    public Player directorQuestGiver() {
+        return director.createQuestGiver("Elder", "Dragon Quest");
+    }
+}
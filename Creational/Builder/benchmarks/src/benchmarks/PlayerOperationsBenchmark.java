@@ -0,0 +1,127 @@
+package benchmarks;
+
+import builders.*;
+import java.util.concurrent.TimeUnit;
+import model.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Operations on built players: takeDamage loops, toString, and inventory scans
+ * over the player's item list against the indexed Inventory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PlayerOperationsBenchmark {
+    private static final int DAMAGE_HITS = 100;
+
+    @Param({"10", "1000"})
+    public int itemCount;
+
+    private Player player;
+    private Inventory inventory;
+    private String lastItemName;
+
+    @Setup
+    public void setUp() {
+        PlayerBuilder builder = new WarriorBuilder()
+                .name("Aragorn")
+                .addWeapon(new Weapon("Sword", 50, WeaponType.SWORD))
+                .addFriend(new PlayerDirector().createNewbie("Sam"));
+        ItemType[] types = ItemType.values();
+        for (int i = 0; i < itemCount; i++) {
+            builder.addItem(Item.builder()
+                    .name("Item" + i)
+                    .itemType(types[i % types.length])
+                    .value(i)
+                    .weight(1 + i % 5)
+                    .build());
+        }
+        player = ((WarriorBuilder) builder).build();
+        inventory = Inventory.of(player);
+        lastItemName = "Item" + (itemCount - 1);
+    }
+
+    /**
+     * A pool of players built once per iteration and cycled by index, each with one listener so
+     * every hit goes through notification like a tracked player's would. Health starts at
+     * Integer.MAX_VALUE, so no player in the pool dies within an iteration and every hit lands.
+     */
+    @State(Scope.Thread)
+    public static class DamageTarget {
+        private static final int POOL_SIZE = 1024;
+
+        final Player[] pool = new Player[POOL_SIZE];
+        int next;
+        int notifications;
+
+        // model.Level is imported too, hence the qualified name
+        @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+        public void setUp() {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                pool[i] = new Player("Dummy" + i, Integer.MAX_VALUE, true, null, null, null, null);
+                pool[i].addListener((damaged, previousHealth) -> notifications++);
+            }
+            next = 0;
+        }
+
+        Player next() {
+            Player player = pool[next];
+            next = (next + 1) & (POOL_SIZE - 1);
+            return player;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DAMAGE_HITS)
+    public int takeDamage(DamageTarget target) {
+        Player player = target.next();
+        for (int i = 0; i < DAMAGE_HITS; i++) {
+            player.takeDamage(1);
+        }
+        return player.getHealth() + target.notifications;
+    }
+
+    @Benchmark
+    public String playerToString() {
+        return player.toString();
+    }
+
+    @Benchmark
+    public int scanItemsForType() {
+        int count = 0;
+        for (Item item : player.getItems()) {
+            if (item.getItemType() == ItemType.MAGIC) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int inventoryCountOfType() {
+        return inventory.countOf(ItemType.MAGIC);
+    }
+
+    @Benchmark
+    public long scanItemsForValue() {
+        long total = 0;
+        for (Item item : player.getItems()) {
+            total += item.getValue();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long inventoryTotalValue() {
+        return inventory.getTotalValue();
+    }
+
+    @Benchmark
+    public Item inventoryFindByName() {
+        return inventory.findByName(lastItemName);
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Generates the self-typed builders in builders.generated from one schema of Player's fields.
+ *
+ * Every setter returns the concrete builder type, so call chains need no casts, scalar fields
+ * are primitives, collections are presized, and build() calls Player's direct constructor
+ * instead of going through the BuilderData interface. Rules and default health are not copied:
+ * each variant validates with its hand-written builder's RULES and starts from its
+ * DEFAULT_HEALTH, and records build() times in ConstructionMetrics like the hand-written ones.
+ *
+ * Run from the Builder directory after changing the schema:
+ *   java codegen/BuilderGenerator.java src
+ */
+public class BuilderGenerator {
+
+    // Player's field schema, in Player constructor order
+    private static final List<Field> PLAYER_FIELDS = List.of(
+            Field.scalar("name", "String", null),
+            Field.scalar("health", "int", "DEFAULT_HEALTH"),
+            Field.scalar("isAlive", "boolean", "true"),
+            Field.list("items", "Item", "addItem", "item"),
+            Field.list("friends", "Player", "addFriend", "friend"),
+            Field.scalar("level", "Level", null),
+            Field.list("weapons", "Weapon", "addWeapon", "weapon")
+    );
+
+    private static final int LIST_CAPACITY = 4;
+
+    private static final List<Variant> VARIANTS = List.of(
+            new Variant("FastBasicPlayerBuilder", "BasicPlayerBuilder", "standard players"),
+            new Variant("FastWarriorBuilder", "WarriorBuilder", "warrior characters"),
+            new Variant("FastMageBuilder", "MageBuilder", "mage characters")
+    );
+
+    public static void main(String[] args) throws IOException {
+        Path sourceRoot = Paths.get(args.length > 0 ? args[0] : "src");
+        Path target = sourceRoot.resolve("builders").resolve("generated");
+        Files.createDirectories(target);
+        for (Variant variant : VARIANTS) {
+            Path file = target.resolve(variant.className + ".java");
+            Files.write(file, generate(variant).getBytes(StandardCharsets.UTF_8));
+            System.out.println("Generated " + file);
+        }
+    }
+
+    private static String generate(Variant variant) {
+        StringBuilder out = new StringBuilder();
+        String self = variant.className;
+        String source = variant.sourceBuilder;
+        out.append("package builders.generated;\n\n");
+        out.append("import builders.").append(source).append(";\n");
+        out.append("import java.util.ArrayList;\n");
+        out.append("import java.util.List;\n");
+        out.append("import metrics.ConstructionMetrics;\n");
+        out.append("import model.*;\n\n");
+        out.append("// Generated by codegen/BuilderGenerator.java - do not edit, change the schema and regenerate.\n");
+        out.append("/**\n");
+        out.append(" * Self-typed builder for ").append(variant.description).append(".\n");
+        out.append(" * Setters return ").append(self).append(", so chains need no casts, and build() calls Player directly.\n");
+        out.append(" * Validates with ").append(source).append(".RULES and starts from its DEFAULT_HEALTH.\n");
+        out.append(" */\n");
+        out.append("public final class ").append(self).append(" {\n");
+        out.append("    private static final ConstructionMetrics.Recorder METRICS = ConstructionMetrics.global().recorder(\"")
+                .append(self).append(".build\");\n");
+        out.append("    private static final int DEFAULT_HEALTH = ").append(source).append(".DEFAULT_HEALTH;\n");
+        out.append('\n');
+
+        for (Field field : PLAYER_FIELDS) {
+            if (field.isList()) {
+                out.append("    private final ArrayList<").append(field.elementType).append("> ").append(field.name)
+                        .append(" = new ArrayList<>(").append(LIST_CAPACITY).append(");\n");
+            } else {
+                out.append("    private ").append(field.type).append(' ').append(field.name)
+                        .append(field.initial != null ? " = " + field.initial : "").append(";\n");
+            }
+        }
+
+        for (Field field : PLAYER_FIELDS) {
+            out.append('\n');
+            if (field.isList()) {
+                out.append("    public ").append(self).append(' ').append(field.name).append("(List<")
+                        .append(field.elementType).append("> ").append(field.name).append(") {\n");
+                out.append("        this.").append(field.name).append(".clear();\n");
+                out.append("        if (").append(field.name).append(" != null) {\n");
+                out.append("            for (").append(field.elementType).append(' ').append(field.elementName)
+                        .append(" : ").append(field.name).append(") {\n");
+                out.append("                ").append(field.adder).append('(').append(field.elementName).append(");\n");
+                out.append("            }\n");
+                out.append("        }\n");
+                out.append("        return this;\n");
+                out.append("    }\n\n");
+                out.append("    public ").append(self).append(' ').append(field.adder).append('(')
+                        .append(field.elementType).append(' ').append(field.elementName).append(") {\n");
+                out.append("        if (").append(field.elementName).append(" != null) {\n");
+                out.append("            this.").append(field.name).append(".add(").append(field.elementName).append(");\n");
+                out.append("        }\n");
+                out.append("        return this;\n");
+                out.append("    }\n");
+            } else {
+                out.append("    public ").append(self).append(' ').append(field.name).append('(')
+                        .append(field.type).append(' ').append(field.name).append(") {\n");
+                out.append("        this.").append(field.name).append(" = ").append(field.name).append(";\n");
+                out.append("        return this;\n");
+                out.append("    }\n");
+            }
+        }
+
+        out.append("\n    /**\n");
+        out.append("     * Clears all building state so this builder can be reused for another player.\n");
+        out.append("     */\n");
+        out.append("    public ").append(self).append(" reset() {\n");
+        for (Field field : PLAYER_FIELDS) {
+            if (field.isList()) {
+                out.append("        this.").append(field.name).append(".clear();\n");
+            } else {
+                out.append("        this.").append(field.name).append(" = ")
+                        .append(field.initial != null ? field.initial : "null").append(";\n");
+            }
+        }
+        out.append("        return this;\n");
+        out.append("    }\n\n");
+
+        out.append("    public Player build() {\n");
+        out.append("        long start = METRICS.start();\n");
+        out.append("        boolean built = false;\n");
+        out.append("        try {\n");
+        out.append("            ").append(source).append(".RULES.validate(name, health, weapons);\n");
+        out.append("            Player player = new Player(");
+        for (int i = 0; i < PLAYER_FIELDS.size(); i++) {
+            out.append(i > 0 ? ", " : "").append(PLAYER_FIELDS.get(i).name);
+        }
+        out.append(");\n");
+        out.append("            built = true;\n");
+        out.append("            return player;\n");
+        out.append("        } finally {\n");
+        out.append("            METRICS.stop(start, built);\n");
+        out.append("        }\n");
+        out.append("    }\n");
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private static final class Field {
+        final String name;
+        final String type;
+        final String initial;
+        final String elementType;
+        final String adder;
+        final String elementName;
+
+        private Field(String name, String type, String initial, String elementType, String adder, String elementName) {
+            this.name = name;
+            this.type = type;
+            this.initial = initial;
+            this.elementType = elementType;
+            this.adder = adder;
+            this.elementName = elementName;
+        }
+
+        static Field scalar(String name, String type, String initial) {
+            return new Field(name, type, initial, null, null, null);
+        }
+
+        static Field list(String name, String elementType, String adder, String elementName) {
+            return new Field(name, "List<" + elementType + ">", null, elementType, adder, elementName);
+        }
+
+        boolean isList() {
+            return elementType != null;
+        }
+    }
+
+    // A generated builder and the hand-written builder in package builders whose RULES and DEFAULT_HEALTH it uses
+    private static final class Variant {
+        final String className;
+        final String sourceBuilder;
+        final String description;
+
+        Variant(String className, String sourceBuilder, String description) {
+            this.className = className;
+            this.sourceBuilder = sourceBuilder;
+            this.description = description;
+        }
+    }
+}
@@ -2,20 +2,29 @@ package builders;
 
 import java.util.ArrayList;
 import java.util.List;
+import metrics.ConstructionMetrics;
 import model.*;
+import validation.PlayerRules;
 
 /**
  * Basic concrete implementation of PlayerBuilder for creating standard players.
  * This class implements the PlayerBuilder interface and provides the build() method.
  */
 public class BasicPlayerBuilder implements PlayerBuilder, BuilderData {
+    public static final PlayerRules RULES = PlayerRules.builder("Player")
+            .requireName()
+            .requirePositiveHealth()
+            .compile();
+    private static final ConstructionMetrics.Recorder METRICS = ConstructionMetrics.global().recorder("BasicPlayerBuilder.build");
+    public static final int DEFAULT_HEALTH = 100;
     private String name;
-    private Integer health = 100; // Basic players have standard health
+    private Integer health = DEFAULT_HEALTH; // Basic players have standard health
     private Boolean isAlive = true;
-    private List<Item> items = new ArrayList<>();
-    private List<Player> friends = new ArrayList<>();
+    private final List<Item> items = new ArrayList<>();
+    private final List<Player> friends = new ArrayList<>();
     private Level level;
-    private List<Weapon> weapons = new ArrayList<>();
+    private final List<Weapon> weapons = new ArrayList<>();
+    boolean borrowed; // set while handed out by BuilderPool
 
     @Override
     public PlayerBuilder name(String name) {
@@ -37,7 +46,12 @@ public class BasicPlayerBuilder implements PlayerBuilder, BuilderData {
 
     @Override
     public PlayerBuilder items(List<Item> items) {
-        this.items = items != null ? new ArrayList<>(items) : new ArrayList<>();
+        this.items.clear();
+        if (items != null) {
+            for (Item item : items) {
+                addItem(item);
+            }
+        }
         return this;
     }
 
@@ -51,7 +65,12 @@ public class BasicPlayerBuilder implements PlayerBuilder, BuilderData {
 
     @Override
     public PlayerBuilder friends(List<Player> friends) {
-        this.friends = friends != null ? new ArrayList<>(friends) : new ArrayList<>();
+        this.friends.clear();
+        if (friends != null) {
+            for (Player friend : friends) {
+                addFriend(friend);
+            }
+        }
         return this;
     }
 
@@ -71,7 +90,12 @@ public class BasicPlayerBuilder implements PlayerBuilder, BuilderData {
 
     @Override
     public PlayerBuilder weapons(List<Weapon> weapons) {
-        this.weapons = weapons != null ? new ArrayList<>(weapons) : new ArrayList<>();
+        this.weapons.clear();
+        if (weapons != null) {
+            for (Weapon weapon : weapons) {
+                addWeapon(weapon);
+            }
+        }
         return this;
     }
 
@@ -83,19 +107,43 @@ public class BasicPlayerBuilder implements PlayerBuilder, BuilderData {
         return this;
     }
 
+    /**
+     * Clears all building state so this builder can be reused for another player.
+     * The collections keep their capacity; built players hold their own copies.
+     */
+    @Override
+    public BasicPlayerBuilder reset() {
+        this.name = null;
+        this.health = DEFAULT_HEALTH;
+        this.isAlive = true;
+        this.items.clear();
+        this.friends.clear();
+        this.level = null;
+        this.weapons.clear();
+        return this;
+    }
+
     /**
      * Builds the Player object with basic validations.
      * The build method is NOT in the interface - it's specific to this concrete builder.
      */
     public Player build() {
-        if (name == null || name.trim().isEmpty()) {
-            throw new IllegalStateException("Player name cannot be null or empty");
-        }
-        if (health <= 0) {
-            throw new IllegalStateException("Player health must be positive");
+        long start = METRICS.start();
+        boolean built = false;
+        boolean pooled = borrowed;
+        try {
+            borrowed = false;
+            RULES.validate(this);
+            Player player = new Player(this);
+            built = true;
+            return player;
+        } finally {
+            if (pooled) {
+                // Pooled builders live as long as their thread; do not keep this player's lists reachable
+                reset();
+            }
+            METRICS.stop(start, built);
         }
-        
-        return new Player(this);
     }
 
     // Getters for Player constructor
@@ -0,0 +1,74 @@
+package builders;
+
+/**
+ * Thread-local pool of reusable builders.
+ * Each call resets and returns the calling thread's builder of the requested type,
+ * so high-rate construction does not allocate a new builder per player.
+ *
+ * A pooled builder is returned to the pool when build() is called, and is cleared there so
+ * the pool does not keep the last player's items, friends and weapons reachable. If the thread's
+ * builder is still out (e.g. a friend is built while the outer player is being built),
+ * a fresh builder is handed out instead, so a pooled builder is never reset under its user.
+ * A caller that may give up before build() (e.g. when configuring it can throw) calls
+ * release() in a finally block; otherwise the thread's builder stays out and every later
+ * call on that thread allocates.
+ */
+public final class BuilderPool {
+    private static final ThreadLocal<BasicPlayerBuilder> BASIC = ThreadLocal.withInitial(BasicPlayerBuilder::new);
+    private static final ThreadLocal<WarriorBuilder> WARRIOR = ThreadLocal.withInitial(WarriorBuilder::new);
+    private static final ThreadLocal<MageBuilder> MAGE = ThreadLocal.withInitial(MageBuilder::new);
+
+    private BuilderPool() {}
+
+    public static BasicPlayerBuilder basic() {
+        BasicPlayerBuilder builder = BASIC.get();
+        if (builder.borrowed) {
+            return new BasicPlayerBuilder();
+        }
+        builder.borrowed = true;
+        return builder.reset();
+    }
+
+    public static WarriorBuilder warrior() {
+        WarriorBuilder builder = WARRIOR.get();
+        if (builder.borrowed) {
+            return new WarriorBuilder();
+        }
+        builder.borrowed = true;
+        return builder.reset();
+    }
+
+    public static MageBuilder mage() {
+        MageBuilder builder = MAGE.get();
+        if (builder.borrowed) {
+            return new MageBuilder();
+        }
+        builder.borrowed = true;
+        return builder.reset();
+    }
+
+    /**
+     * Returns the builder to the pool without building and clears it; does nothing if it was already returned
+     * or was not the pooled one. Only its borrower may call this.
+     */
+    public static void release(BasicPlayerBuilder builder) {
+        if (builder == BASIC.get() && builder.borrowed) {
+            builder.borrowed = false;
+            builder.reset();
+        }
+    }
+
+    public static void release(WarriorBuilder builder) {
+        if (builder == WARRIOR.get() && builder.borrowed) {
+            builder.borrowed = false;
+            builder.reset();
+        }
+    }
+
+    public static void release(MageBuilder builder) {
+        if (builder == MAGE.get() && builder.borrowed) {
+            builder.borrowed = false;
+            builder.reset();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package builders;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import model.*;
+
+/**
+ * Builds large batches of players in parallel on a work-stealing ForkJoinPool.
+ * The spec list is split into chunks, each chunk is built on whichever worker is free,
+ * and results are written back by index so the output keeps the input order.
+ */
+public class BulkPlayerBuilder {
+
+    /**
+     * How validation failures (IllegalStateException from build()) are handled.
+     */
+    public enum ErrorMode {
+        /** Skip work after a failure and rethrow the failure at the lowest input index */
+        FAIL_FAST,
+        /** Build everything possible and report every failure */
+        COLLECT_ERRORS
+    }
+
+    private static final int DEFAULT_CHUNK_SIZE = 256;
+
+    private final ForkJoinPool pool;
+    private final PlayerDirector director;
+    private final int chunkSize;
+    private final ErrorMode errorMode;
+
+    public BulkPlayerBuilder() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, ErrorMode.FAIL_FAST);
+    }
+
+    public BulkPlayerBuilder(ErrorMode errorMode) {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, errorMode);
+    }
+
+    public BulkPlayerBuilder(ForkJoinPool pool, int chunkSize, ErrorMode errorMode) {
+        if (pool == null || errorMode == null) {
+            throw new IllegalArgumentException("Pool and error mode cannot be null");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.pool = pool;
+        this.director = new PlayerDirector();
+        this.chunkSize = chunkSize;
+        this.errorMode = errorMode;
+    }
+
+    /**
+     * Builds every spec and returns the players in input order.
+     * In FAIL_FAST mode the validation failure at the lowest input index is rethrown,
+     * the same one on every run;
+     * in COLLECT_ERRORS mode failed slots are null and listed in the result.
+     */
+    public Result build(List<? extends PlayerSpec> specs) {
+        PlayerSpec[] input = specs.toArray(new PlayerSpec[0]);
+        Player[] output = new Player[input.length];
+        BuildContext context = new BuildContext(input, output);
+
+        if (input.length > 0) {
+            pool.invoke(new ChunkTask(context, 0, input.length));
+        }
+
+        Failure firstFailure = context.firstFailure.get();
+        if (errorMode == ErrorMode.FAIL_FAST && firstFailure != null) {
+            throw firstFailure.getCause();
+        }
+
+        List<Failure> failures = new ArrayList<>(context.failures);
+        failures.sort(Comparator.comparingInt(Failure::getIndex));
+        return new Result(Arrays.asList(output), failures);
+    }
+
+    private final class BuildContext {
+        final PlayerSpec[] input;
+        final Player[] output;
+        // The failure with the lowest index so far
+        final AtomicReference<Failure> firstFailure = new AtomicReference<>();
+        final ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+        BuildContext(PlayerSpec[] input, Player[] output) {
+            this.input = input;
+            this.output = output;
+        }
+
+        // Only specs after a known failure are skipped, so every spec before the lowest failing one is built
+        boolean cancelled(int index) {
+            if (errorMode != ErrorMode.FAIL_FAST) {
+                return false;
+            }
+            Failure first = firstFailure.get();
+            return first != null && index > first.getIndex();
+        }
+
+        void failed(Failure failure) {
+            failures.add(failure);
+            Failure first = firstFailure.get();
+            while ((first == null || failure.getIndex() < first.getIndex())
+                    && !firstFailure.compareAndSet(first, failure)) {
+                first = firstFailure.get();
+            }
+        }
+    }
+
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BuildContext context;
+        private final int from;
+        private final int to;
+
+        ChunkTask(BuildContext context, int from, int to) {
+            this.context = context;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (context.cancelled(from)) {
+                return;
+            }
+            if (to - from > chunkSize) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(context, from, mid), new ChunkTask(context, mid, to));
+                return;
+            }
+            for (int i = from; i < to && !context.cancelled(i); i++) {
+                try {
+                    context.output[i] = context.input[i].build(director);
+                } catch (IllegalStateException e) {
+                    context.failed(new Failure(i, e));
+                }
+            }
+        }
+    }
+
+    /**
+     * Outcome of a bulk build. Players are in input order; failed slots are null.
+     */
+    public static final class Result {
+        private final List<Player> players;
+        private final List<Failure> failures;
+
+        Result(List<Player> players, List<Failure> failures) {
+            this.players = Collections.unmodifiableList(players);
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        public List<Player> getPlayers() {
+            return players;
+        }
+
+        public List<Failure> getFailures() {
+            return failures;
+        }
+
+        public boolean hasFailures() {
+            return !failures.isEmpty();
+        }
+    }
+
+    /**
+     * A spec that failed validation, with its position in the input list.
+     */
+    public static final class Failure {
+        private final int index;
+        private final IllegalStateException cause;
+
+        Failure(int index, IllegalStateException cause) {
+            this.index = index;
+            this.cause = cause;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public IllegalStateException getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return "Failure{" +
+                    "index=" + index +
+                    ", message='" + cause.getMessage() + '\'' +
+                    '}';
+        }
+    }
+}
@@ -1,21 +1,33 @@
 package builders;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import metrics.ConstructionMetrics;
 import model.*;
+import validation.PlayerRules;
 
 /**
  * Concrete implementation of PlayerBuilder specialized for creating mage characters.
  * This class implements the PlayerBuilder interface and provides the build() method.
  */
 public class MageBuilder implements PlayerBuilder, BuilderData {
+    // Mage-specific validation: weapons should be magical
+    public static final PlayerRules RULES = PlayerRules.builder("Mage")
+            .requireName()
+            .requirePositiveHealth()
+            .allowWeapons(EnumSet.of(WeaponType.STAFF, WeaponType.WAND), "Mages can only use staffs and wands")
+            .compile();
+    private static final ConstructionMetrics.Recorder METRICS = ConstructionMetrics.global().recorder("MageBuilder.build");
+    public static final int DEFAULT_HEALTH = 80;
     private String name;
-    private Integer health = 80; // Mages have less health by default
+    private Integer health = DEFAULT_HEALTH; // Mages have less health by default
     private Boolean isAlive = true;
-    private List<Item> items = new ArrayList<>();
-    private List<Player> friends = new ArrayList<>();
+    private final List<Item> items = new ArrayList<>();
+    private final List<Player> friends = new ArrayList<>();
     private Level level;
-    private List<Weapon> weapons = new ArrayList<>();
+    private final List<Weapon> weapons = new ArrayList<>();
+    boolean borrowed; // set while handed out by BuilderPool
 
     @Override
     public PlayerBuilder name(String name) {
@@ -37,7 +49,12 @@ public class MageBuilder implements PlayerBuilder, BuilderData {
 
     @Override
     public PlayerBuilder items(List<Item> items) {
-        this.items = items != null ? new ArrayList<>(items) : new ArrayList<>();
+        this.items.clear();
+        if (items != null) {
+            for (Item item : items) {
+                addItem(item);
+            }
+        }
         return this;
     }
 
@@ -51,7 +68,12 @@ public class MageBuilder implements PlayerBuilder, BuilderData {
 
     @Override
     public PlayerBuilder friends(List<Player> friends) {
-        this.friends = friends != null ? new ArrayList<>(friends) : new ArrayList<>();
+        this.friends.clear();
+        if (friends != null) {
+            for (Player friend : friends) {
+                addFriend(friend);
+            }
+        }
         return this;
     }
 
@@ -71,7 +93,12 @@ public class MageBuilder implements PlayerBuilder, BuilderData {
 
     @Override
     public PlayerBuilder weapons(List<Weapon> weapons) {
-        this.weapons = weapons != null ? new ArrayList<>(weapons) : new ArrayList<>();
+        this.weapons.clear();
+        if (weapons != null) {
+            for (Weapon weapon : weapons) {
+                addWeapon(weapon);
+            }
+        }
         return this;
     }
 
@@ -83,27 +110,43 @@ public class MageBuilder implements PlayerBuilder, BuilderData {
         return this;
     }
 
+    /**
+     * Clears all building state so this builder can be reused for another player.
+     * The collections keep their capacity; built players hold their own copies.
+     */
+    @Override
+    public MageBuilder reset() {
+        this.name = null;
+        this.health = DEFAULT_HEALTH;
+        this.isAlive = true;
+        this.items.clear();
+        this.friends.clear();
+        this.level = null;
+        this.weapons.clear();
+        return this;
+    }
+
     /**
      * Builds the Player object with mage-specific validations.
      * The build method is NOT in the interface - it's specific to this concrete builder.
      */
     public Player build() {
-        if (name == null || name.trim().isEmpty()) {
-            throw new IllegalStateException("Mage name cannot be null or empty");
-        }
-        if (health <= 0) {
-            throw new IllegalStateException("Mage health must be positive");
-        }
-        
-        // Mage-specific validation: weapons should be magical
-        for (Weapon weapon : weapons) {
-            if (weapon.getWeaponType() != WeaponType.STAFF && 
-                weapon.getWeaponType() != WeaponType.WAND) {
-                throw new IllegalStateException("Mages can only use staffs and wands");
+        long start = METRICS.start();
+        boolean built = false;
+        boolean pooled = borrowed;
+        try {
+            borrowed = false;
+            RULES.validate(this);
+            Player player = new Player(this);
+            built = true;
+            return player;
+        } finally {
+            if (pooled) {
+                // Pooled builders live as long as their thread; do not keep this player's lists reachable
+                reset();
             }
+            METRICS.stop(start, built);
         }
-        
-        return new Player(this);
     }
 
     // Getters for Player constructor
@@ -19,4 +19,5 @@ public interface PlayerBuilder {
     PlayerBuilder level(Level level);
     PlayerBuilder weapons(List<Weapon> weapons);
     PlayerBuilder addWeapon(Weapon weapon);
+    PlayerBuilder reset();
 }
@@ -0,0 +1,36 @@
+package builders;
+
+import java.util.function.Supplier;
+import model.*;
+
+/**
+ * Describes one player to be constructed by a bulk build.
+ * A spec is either one of the standard Director recipes or a custom builder recipe.
+ */
+@FunctionalInterface
+public interface PlayerSpec {
+    Player build(PlayerDirector director);
+
+    static PlayerSpec newbie(String name) {
+        return director -> director.createNewbie(name);
+    }
+
+    static PlayerSpec warrior(String name) {
+        return director -> director.createWarrior(name);
+    }
+
+    static PlayerSpec mage(String name) {
+        return director -> director.createMage(name);
+    }
+
+    static PlayerSpec questGiver(String name, String questName) {
+        return director -> director.createQuestGiver(name, questName);
+    }
+
+    /**
+     * Wraps any custom construction, e.g. {@code () -> new WarriorBuilder()...build()}
+     */
+    static PlayerSpec custom(Supplier<Player> recipe) {
+        return director -> recipe.get();
+    }
+}
@@ -0,0 +1,124 @@
+package builders.generated;
+
+import builders.BasicPlayerBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import metrics.ConstructionMetrics;
+import model.*;
+
+// Generated by codegen/BuilderGenerator.java - do not edit, change the schema and regenerate.
+/**
+ * Self-typed builder for standard players.
+ * Setters return FastBasicPlayerBuilder, so chains need no casts, and build() calls Player directly.
+ * Validates with BasicPlayerBuilder.RULES and starts from its DEFAULT_HEALTH.
+ */
+public final class FastBasicPlayerBuilder {
+    private static final ConstructionMetrics.Recorder METRICS = ConstructionMetrics.global().recorder("FastBasicPlayerBuilder.build");
+    private static final int DEFAULT_HEALTH = BasicPlayerBuilder.DEFAULT_HEALTH;
+
+    private String name;
+    private int health = DEFAULT_HEALTH;
+    private boolean isAlive = true;
+    private final ArrayList<Item> items = new ArrayList<>(4);
+    private final ArrayList<Player> friends = new ArrayList<>(4);
+    private Level level;
+    private final ArrayList<Weapon> weapons = new ArrayList<>(4);
+
+    public FastBasicPlayerBuilder name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public FastBasicPlayerBuilder health(int health) {
+        this.health = health;
+        return this;
+    }
+
+    public FastBasicPlayerBuilder isAlive(boolean isAlive) {
+        this.isAlive = isAlive;
+        return this;
+    }
+
+    public FastBasicPlayerBuilder items(List<Item> items) {
+        this.items.clear();
+        if (items != null) {
+            for (Item item : items) {
+                addItem(item);
+            }
+        }
+        return this;
+    }
+
+    public FastBasicPlayerBuilder addItem(Item item) {
+        if (item != null) {
+            this.items.add(item);
+        }
+        return this;
+    }
+
+    public FastBasicPlayerBuilder friends(List<Player> friends) {
+        this.friends.clear();
+        if (friends != null) {
+            for (Player friend : friends) {
+                addFriend(friend);
+            }
+        }
+        return this;
+    }
+
+    public FastBasicPlayerBuilder addFriend(Player friend) {
+        if (friend != null) {
+            this.friends.add(friend);
+        }
+        return this;
+    }
+
+    public FastBasicPlayerBuilder level(Level level) {
+        this.level = level;
+        return this;
+    }
+
+    public FastBasicPlayerBuilder weapons(List<Weapon> weapons) {
+        this.weapons.clear();
+        if (weapons != null) {
+            for (Weapon weapon : weapons) {
+                addWeapon(weapon);
+            }
+        }
+        return this;
+    }
+
+    public FastBasicPlayerBuilder addWeapon(Weapon weapon) {
+        if (weapon != null) {
+            this.weapons.add(weapon);
+        }
+        return this;
+    }
+
+    /**
+     * Clears all building state so this builder can be reused for another player.
+     */
+    public FastBasicPlayerBuilder reset() {
+        this.name = null;
+        this.health = DEFAULT_HEALTH;
+        this.isAlive = true;
+        this.items.clear();
+        this.friends.clear();
+        this.level = null;
+        this.weapons.clear();
+        return this;
+    }
+
+    public Player build() {
+        long start = METRICS.start();
+        boolean built = false;
+        try {
+            BasicPlayerBuilder.RULES.validate(name, health, weapons);
+            Player player = new Player(name, health, isAlive, items, friends, level, weapons);
+            built = true;
+            return player;
+        } finally {
+            METRICS.stop(start, built);
+        }
+    }
+}
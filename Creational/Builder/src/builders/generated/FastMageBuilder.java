@@ -0,0 +1,124 @@
+package builders.generated;
+
+import builders.MageBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import metrics.ConstructionMetrics;
+import model.*;
+
+// Generated by codegen/BuilderGenerator.java - do not edit, change the schema and regenerate.
+/**
+ * Self-typed builder for mage characters.
+ * Setters return FastMageBuilder, so chains need no casts, and build() calls Player directly.
+ * Validates with MageBuilder.RULES and starts from its DEFAULT_HEALTH.
+ */
+public final class FastMageBuilder {
+    private static final ConstructionMetrics.Recorder METRICS = ConstructionMetrics.global().recorder("FastMageBuilder.build");
+    private static final int DEFAULT_HEALTH = MageBuilder.DEFAULT_HEALTH;
+
+    private String name;
+    private int health = DEFAULT_HEALTH;
+    private boolean isAlive = true;
+    private final ArrayList<Item> items = new ArrayList<>(4);
+    private final ArrayList<Player> friends = new ArrayList<>(4);
+    private Level level;
+    private final ArrayList<Weapon> weapons = new ArrayList<>(4);
+
+    public FastMageBuilder name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public FastMageBuilder health(int health) {
+        this.health = health;
+        return this;
+    }
+
+    public FastMageBuilder isAlive(boolean isAlive) {
+        this.isAlive = isAlive;
+        return this;
+    }
+
+    public FastMageBuilder items(List<Item> items) {
+        this.items.clear();
+        if (items != null) {
+            for (Item item : items) {
+                addItem(item);
+            }
+        }
+        return this;
+    }
+
+    public FastMageBuilder addItem(Item item) {
+        if (item != null) {
+            this.items.add(item);
+        }
+        return this;
+    }
+
+    public FastMageBuilder friends(List<Player> friends) {
+        this.friends.clear();
+        if (friends != null) {
+            for (Player friend : friends) {
+                addFriend(friend);
+            }
+        }
+        return this;
+    }
+
+    public FastMageBuilder addFriend(Player friend) {
+        if (friend != null) {
+            this.friends.add(friend);
+        }
+        return this;
+    }
+
+    public FastMageBuilder level(Level level) {
+        this.level = level;
+        return this;
+    }
+
+    public FastMageBuilder weapons(List<Weapon> weapons) {
+        this.weapons.clear();
+        if (weapons != null) {
+            for (Weapon weapon : weapons) {
+                addWeapon(weapon);
+            }
+        }
+        return this;
+    }
+
+    public FastMageBuilder addWeapon(Weapon weapon) {
+        if (weapon != null) {
+            this.weapons.add(weapon);
+        }
+        return this;
+    }
+
+    /**
+     * Clears all building state so this builder can be reused for another player.
+     */
+    public FastMageBuilder reset() {
+        this.name = null;
+        this.health = DEFAULT_HEALTH;
+        this.isAlive = true;
+        this.items.clear();
+        this.friends.clear();
+        this.level = null;
+        this.weapons.clear();
+        return this;
+    }
+
+    public Player build() {
+        long start = METRICS.start();
+        boolean built = false;
+        try {
+            MageBuilder.RULES.validate(name, health, weapons);
+            Player player = new Player(name, health, isAlive, items, friends, level, weapons);
+            built = true;
+            return player;
+        } finally {
+            METRICS.stop(start, built);
+        }
+    }
+}
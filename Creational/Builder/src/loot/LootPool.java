@@ -0,0 +1,106 @@
+package loot;
+
+import model.*;
+
+/**
+ * Generated drops held as two primitive columns: the drop index into the LootTable and the
+ * quantity. Drops are resolved to their Item template only when read, so a pool of millions
+ * of drops is two int arrays, and regenerating into the same pool allocates nothing.
+ */
+public class LootPool {
+    private final LootTable table;
+    private int[] drops;
+    private int[] quantities;
+    private int size;
+
+    LootPool(LootTable table, int capacity) {
+        this.table = table;
+        this.drops = new int[capacity];
+        this.quantities = new int[capacity];
+    }
+
+    public static LootPool forTable(LootTable table) {
+        return new LootPool(table, 0);
+    }
+
+    public LootTable getTable() {
+        return table;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getDrop(int index) {
+        checkIndex(index);
+        return drops[index];
+    }
+
+    public Item getItem(int index) {
+        checkIndex(index);
+        return table.getTemplate(drops[index]);
+    }
+
+    public int getQuantity(int index) {
+        checkIndex(index);
+        return quantities[index];
+    }
+
+    /**
+     * Total item count per drop index, e.g. for drop-rate reports.
+     */
+    public long[] countByDrop() {
+        long[] counts = new long[table.size()];
+        for (int i = 0; i < size; i++) {
+            counts[drops[i]] += quantities[i];
+        }
+        return counts;
+    }
+
+    public long getTotalValue() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += (long) table.getTemplate(drops[i]).getValue() * quantities[i];
+        }
+        return total;
+    }
+
+    /**
+     * Adds the drops in [from, to) to the inventory.
+     */
+    public void addTo(Inventory inventory, int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") outside pool of size " + size);
+        }
+        for (int i = from; i < to; i++) {
+            inventory.add(table.getTemplate(drops[i]), quantities[i]);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // Resizes for a new generation; the arrays only grow
+    void reset(int count) {
+        if (drops.length < count) {
+            drops = new int[count];
+            quantities = new int[count];
+        }
+        size = count;
+    }
+
+    int[] drops() {
+        return drops;
+    }
+
+    int[] quantities() {
+        return quantities;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " outside pool of size " + size);
+        }
+    }
+}
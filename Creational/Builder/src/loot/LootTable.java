@@ -0,0 +1,254 @@
+package loot;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import model.*;
+
+/**
+ * Weighted drop table: first an ItemType is chosen by its weight, then one of that type's
+ * drops by the drop's weight, then a quantity in the drop's range.
+ *
+ * Both choices are folded into a single alias table (Walker's method) when the table is
+ * built, so a roll costs one nextInt, one nextDouble and two array reads whatever the number
+ * of drops. Drops are Item templates: items are immutable, so every roll of a drop returns the
+ * same instance and no ItemBuilder, Optional or Item is created per drop. generate() writes
+ * drops as template indexes into a LootPool.
+ *
+ * generate() splits one seeded SplittableRandom into a stream per block of drops before
+ * running the blocks in parallel, so the same seed always produces the same drops in the same
+ * order, on any number of cores.
+ */
+public class LootTable {
+    private static final int BLOCK_SIZE = 1 << 12;
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private final Item[] templates;
+    private final int[] minQuantity;
+    private final int[] quantityRange;
+    // Alias table: column i yields i with probability probability[i], otherwise alias[i]
+    private final double[] probability;
+    private final int[] alias;
+
+    private LootTable(Builder builder, double[] weights) {
+        int size = builder.templates.size();
+        this.templates = builder.templates.toArray(new Item[0]);
+        this.minQuantity = new int[size];
+        this.quantityRange = new int[size];
+        for (int i = 0; i < size; i++) {
+            minQuantity[i] = builder.minQuantities.get(i);
+            quantityRange[i] = builder.maxQuantities.get(i) - minQuantity[i] + 1;
+        }
+        this.probability = new double[size];
+        this.alias = new int[size];
+        buildAliasTable(weights);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Index of a randomly chosen drop; resolve it with getTemplate().
+     */
+    public int roll(SplittableRandom random) {
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    public Item rollItem(SplittableRandom random) {
+        return templates[roll(random)];
+    }
+
+    /**
+     * A quantity for the given drop, within its configured range.
+     */
+    public int rollQuantity(int drop, SplittableRandom random) {
+        int range = quantityRange[drop];
+        return range == 1 ? minQuantity[drop] : minQuantity[drop] + random.nextInt(range);
+    }
+
+    /**
+     * Generates drops into a new pool.
+     */
+    public LootPool generate(long seed, int count) {
+        LootPool pool = new LootPool(this, count);
+        generate(seed, count, pool);
+        return pool;
+    }
+
+    /**
+     * Replaces the pool's contents with the given number of drops. A pool that is already
+     * large enough is reused without allocating.
+     */
+    public void generate(long seed, int count, LootPool pool) {
+        if (pool.getTable() != this) {
+            throw new IllegalArgumentException("Pool belongs to another loot table");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+        pool.reset(count);
+        int[] drops = pool.drops();
+        int[] quantities = pool.quantities();
+        int blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        // Splitting happens in block order on this thread, so block b always gets the same stream
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[blocks];
+        for (int block = 0; block < blocks; block++) {
+            streams[block] = root.split();
+        }
+        IntStream range = IntStream.range(0, blocks);
+        if (count >= PARALLEL_THRESHOLD) {
+            range = range.parallel();
+        }
+        range.forEach(block -> {
+            SplittableRandom random = streams[block];
+            int end = Math.min(count, (block + 1) * BLOCK_SIZE);
+            for (int i = block * BLOCK_SIZE; i < end; i++) {
+                int drop = roll(random);
+                drops[i] = drop;
+                quantities[i] = rollQuantity(drop, random);
+            }
+        });
+    }
+
+    public Item getTemplate(int drop) {
+        return templates[drop];
+    }
+
+    public int size() {
+        return templates.length;
+    }
+
+    // Vose's alias method: split columns into under- and over-full, then top each under-full
+    // column up from an over-full one
+    private void buildAliasTable(double[] weights) {
+        int n = weights.length;
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        int fallback = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n;
+            if (weights[i] > weights[fallback]) {
+                fallback = i;
+            }
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is full up to rounding error; a zero-weight drop must never be picked
+        while (largeCount > 0) {
+            int column = large[--largeCount];
+            probability[column] = 1.0;
+            alias[column] = column;
+        }
+        while (smallCount > 0) {
+            int column = small[--smallCount];
+            probability[column] = weights[column] > 0 ? 1.0 : 0.0;
+            alias[column] = fallback;
+        }
+    }
+
+    /**
+     * Collects type weights and drops; build() checks that every type with drops has a weight.
+     */
+    public static class Builder {
+        private final Map<ItemType, Integer> typeWeights = new EnumMap<>(ItemType.class);
+        private final List<Item> templates = new ArrayList<>();
+        private final List<Integer> weights = new ArrayList<>();
+        private final List<Integer> minQuantities = new ArrayList<>();
+        private final List<Integer> maxQuantities = new ArrayList<>();
+
+        /**
+         * Relative chance of a drop being of this type.
+         */
+        public Builder type(ItemType itemType, int weight) {
+            if (itemType == null) {
+                throw new IllegalArgumentException("Item type cannot be null");
+            }
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight cannot be negative");
+            }
+            typeWeights.put(itemType, weight);
+            return this;
+        }
+
+        /**
+         * A drop of one item, with the given weight among drops of its type.
+         */
+        public Builder drop(Item template, int weight) {
+            return drop(template, weight, 1, 1);
+        }
+
+        /**
+         * A drop of minQuantity..maxQuantity (inclusive) of the item.
+         */
+        public Builder drop(Item template, int weight, int minQuantity, int maxQuantity) {
+            if (template == null) {
+                throw new IllegalArgumentException("Template cannot be null");
+            }
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight cannot be negative");
+            }
+            if (minQuantity <= 0 || maxQuantity < minQuantity) {
+                throw new IllegalArgumentException("Quantity range must be positive and ordered");
+            }
+            templates.add(template);
+            weights.add(weight);
+            minQuantities.add(minQuantity);
+            maxQuantities.add(maxQuantity);
+            return this;
+        }
+
+        public LootTable build() {
+            Map<ItemType, Long> typeTotals = new EnumMap<>(ItemType.class);
+            for (int i = 0; i < templates.size(); i++) {
+                ItemType itemType = templates.get(i).getItemType();
+                if (!typeWeights.containsKey(itemType)) {
+                    throw new IllegalStateException("No weight set for item type " + itemType);
+                }
+                typeTotals.merge(itemType, (long) weights.get(i), Long::sum);
+            }
+            long typeTotal = 0;
+            for (Map.Entry<ItemType, Long> entry : typeTotals.entrySet()) {
+                if (entry.getValue() > 0) {
+                    typeTotal += typeWeights.get(entry.getKey());
+                }
+            }
+            if (typeTotal == 0) {
+                throw new IllegalStateException("Loot table has no drop with a positive weight");
+            }
+            // Chance of drop i = chance of its type * its share of that type's weight
+            double[] chances = new double[templates.size()];
+            for (int i = 0; i < chances.length; i++) {
+                ItemType itemType = templates.get(i).getItemType();
+                long total = typeTotals.get(itemType);
+                if (total > 0) {
+                    chances[i] = (double) typeWeights.get(itemType) / typeTotal * weights.get(i) / total;
+                }
+            }
+            return new LootTable(this, chances);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms for player construction, one Recorder per builder build()
+ * and per Director recipe.
+ *
+ * A Director recipe builds through a builder, which records the same player again, so the
+ * totals only count builder recorders; recipe recorders (recipeRecorder()) appear per name only.
+ *
+ * Recording costs two System.nanoTime() calls and a few striped adds, and nothing at all when
+ * disabled. snapshot() reads everything without stopping recorders; registerMBean() exposes the
+ * same numbers over JMX as builders:type=ConstructionMetrics.
+ */
+public final class ConstructionMetrics implements ConstructionMetricsMXBean {
+    public static final String OBJECT_NAME = "builders:type=ConstructionMetrics";
+
+    private static final ConstructionMetrics GLOBAL = new ConstructionMetrics();
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+
+    /**
+     * Process-wide metrics used by the builders and the Director.
+     */
+    public static ConstructionMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Recorder for a builder's build(); counted in getTotalBuilt() and getTotalRejected().
+     */
+    public Recorder recorder(String name) {
+        return recorders.computeIfAbsent(name, key -> new Recorder(key, true));
+    }
+
+    /**
+     * Recorder for a recipe that builds through a builder; left out of the totals so a player
+     * is not counted twice.
+     */
+    public Recorder recipeRecorder(String name) {
+        return recorders.computeIfAbsent(name, key -> new Recorder(key, false));
+    }
+
+    /**
+     * Current numbers of every recorder, by name.
+     */
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> snapshot = new TreeMap<>();
+        for (Recorder recorder : recorders.values()) {
+            snapshot.put(recorder.name, recorder.snapshot());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Registers this instance with the platform MBean server, if it is not registered yet.
+     */
+    public ObjectName registerMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            synchronized (this) {
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(this, name);
+                }
+            }
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register construction metrics MBean", e);
+        }
+    }
+
+    @Override
+    public Map<String, Snapshot> getRecorders() {
+        return snapshot();
+    }
+
+    @Override
+    public long getTotalBuilt() {
+        long total = 0;
+        for (Recorder recorder : recorders.values()) {
+            if (recorder.counted) {
+                total += recorder.built.sum();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalRejected() {
+        long total = 0;
+        for (Recorder recorder : recorders.values()) {
+            if (recorder.counted) {
+                total += recorder.rejected.sum();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void reset() {
+        for (Recorder recorder : recorders.values()) {
+            recorder.reset();
+        }
+    }
+
+    /**
+     * Counts and times one construction site. Use as:
+     * <pre>
+     * long start = RECORDER.start();
+     * boolean built = false;
+     * try {
+     *     ...
+     *     built = true;
+     * } finally {
+     *     RECORDER.stop(start, built);
+     * }
+     * </pre>
+     */
+    public final class Recorder {
+        private static final long DISABLED = Long.MIN_VALUE;
+
+        private final String name;
+        // Whether the totals include this recorder
+        private final boolean counted;
+        private final LongAdder built = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Recorder(String name, boolean counted) {
+            this.name = name;
+            this.counted = counted;
+        }
+
+        public long start() {
+            return enabled ? System.nanoTime() : DISABLED;
+        }
+
+        /**
+         * Records the outcome; built is false when construction threw (e.g. failed validation).
+         */
+        public void stop(long start, boolean built) {
+            if (start == DISABLED) {
+                return;
+            }
+            latency.record(System.nanoTime() - start);
+            (built ? this.built : rejected).increment();
+        }
+
+        public Snapshot snapshot() {
+            return new Snapshot(built.sum(), rejected.sum(), latency.getMeanNanos(),
+                    latency.getPercentileNanos(50), latency.getPercentileNanos(99), latency.getMaxNanos());
+        }
+
+        void reset() {
+            built.reset();
+            rejected.reset();
+            latency.reset();
+        }
+    }
+
+    /**
+     * Point-in-time numbers of one recorder. Latencies include rejected attempts.
+     */
+    public static final class Snapshot {
+        private final long built;
+        private final long rejected;
+        private final double meanNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+
+        Snapshot(long built, long rejected, double meanNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+            this.built = built;
+            this.rejected = rejected;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getBuilt() { return built; }
+        public long getRejected() { return rejected; }
+        public double getMeanNanos() { return meanNanos; }
+        public long getP50Nanos() { return p50Nanos; }
+        public long getP99Nanos() { return p99Nanos; }
+        public long getMaxNanos() { return maxNanos; }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" +
+                    "built=" + built +
+                    ", rejected=" + rejected +
+                    ", meanNanos=" + String.format("%.0f", meanNanos) +
+                    ", p50Nanos=" + p50Nanos +
+                    ", p99Nanos=" + p99Nanos +
+                    ", maxNanos=" + maxNanos +
+                    '}';
+        }
+    }
+}
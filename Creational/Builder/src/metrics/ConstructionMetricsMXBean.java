@@ -0,0 +1,20 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of ConstructionMetrics; recorders appear as a table of composite rows keyed by name.
+ */
+public interface ConstructionMetricsMXBean {
+    Map<String, ConstructionMetrics.Snapshot> getRecorders();
+
+    long getTotalBuilt();
+
+    long getTotalRejected();
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+}
@@ -0,0 +1,111 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Compact immutable lists for the small collections held by every Player.
+ * Most players carry 0-3 items, weapons or friends, so those sizes are stored
+ * inline in fields (the empty list is a shared singleton) and larger lists
+ * are backed by an exactly-sized array. All variants are unmodifiable and,
+ * being built from final fields, safe to read from any thread.
+ */
+public final class CompactList {
+
+    private CompactList() {}
+
+    /**
+     * Returns a compact immutable copy of the given elements. Null elements are skipped.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> List<E> copyOf(Collection<? extends E> source) {
+        if (source == null || source.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (source instanceof Small || source instanceof Array) {
+            return (List<E>) source;
+        }
+        Object[] elements = source.toArray();
+        int size = 0;
+        for (Object element : elements) {
+            if (element != null) {
+                elements[size++] = element;
+            }
+        }
+        switch (size) {
+            case 0:
+                return Collections.emptyList();
+            case 1:
+                return new Small<>((E) elements[0], null, null, 1);
+            case 2:
+                return new Small<>((E) elements[0], (E) elements[1], null, 2);
+            case 3:
+                return new Small<>((E) elements[0], (E) elements[1], (E) elements[2], 3);
+            default:
+                Object[] trimmed = new Object[size];
+                System.arraycopy(elements, 0, trimmed, 0, size);
+                return new Array<>(trimmed);
+        }
+    }
+
+    /**
+     * One to three elements held inline, no backing array.
+     */
+    private static final class Small<E> extends AbstractList<E> implements RandomAccess {
+        private final E first;
+        private final E second;
+        private final E third;
+        private final int size;
+
+        Small(E first, E second, E third, int size) {
+            this.first = first;
+            this.second = second;
+            this.third = third;
+            this.size = size;
+        }
+
+        @Override
+        public E get(int index) {
+            Objects.checkIndex(index, size);
+            switch (index) {
+                case 0:
+                    return first;
+                case 1:
+                    return second;
+                default:
+                    return third;
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Four or more elements in an exactly-sized array.
+     */
+    private static final class Array<E> extends AbstractList<E> implements RandomAccess {
+        private final Object[] elements;
+
+        Array(Object[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            return (E) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+    }
+}
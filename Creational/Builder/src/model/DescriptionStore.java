@@ -0,0 +1,322 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Shared, deduplicated store for item description text.
+ *
+ * Every distinct string is kept once as UTF-8 bytes in an arena and found again by content
+ * (hash plus comparison), and every distinct title/content/author triple gets one int handle.
+ * Items built with a store keep only those handles; the Description objects are created when
+ * getItemDescription() is first called, i.e. when the text is actually shown.
+ *
+ * A store can be saved to a file and reopened with map(), which memory-maps the text instead
+ * of loading it onto the heap. Text interned after that goes to a heap arena.
+ *
+ * Interning is serialized, but resolving takes no lock: strings and triples are only ever
+ * appended, and the counts are published after the data they cover, so a reader that sees a
+ * handle also sees its text. Each handle is decoded once, on its first resolve(), and every
+ * later call returns that same Description, so items showing the same lore share one copy.
+ * Callers must not modify a resolved Description.
+ */
+public class DescriptionStore {
+    private static final int MAGIC = 0x44455343; // "DESC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int NULL_STRING = -1;
+
+    private static final DescriptionStore SHARED = new DescriptionStore();
+
+    // Strings: bytes of string i are at offsets[i] .. offsets[i + 1], in mapped or heap arena.
+    // Arrays read by resolve() are volatile so a reader seeing a grown copy also sees its contents.
+    private final ByteBuffer mappedArena;
+    private final int mappedCount;
+    private volatile byte[] heapArena = new byte[1024];
+    private volatile int heapLength;
+    private volatile int[] offsets = new int[64];
+    private int[] hashes = new int[64];
+    private volatile int stringCount;
+    private int[] stringTable = newTable(64);
+
+    // Descriptions: three string ids (title, content, author) per handle
+    private volatile int[] triples = new int[48];
+    // Written after the triple it covers
+    private volatile int descriptionCount;
+    // Description per handle, decoded on first resolve(); always at least descriptionCount long
+    private volatile AtomicReferenceArray<Description> resolved = new AtomicReferenceArray<>(16);
+    private int[] descriptionTable = newTable(64);
+
+    public DescriptionStore() {
+        this.mappedArena = ByteBuffer.allocate(0);
+        this.mappedCount = 0;
+    }
+
+    private DescriptionStore(ByteBuffer mappedArena, int mappedCount) {
+        this.mappedArena = mappedArena;
+        this.mappedCount = mappedCount;
+    }
+
+    /**
+     * Process-wide store used by the Director for standard lore.
+     */
+    public static DescriptionStore shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the handle for this description, adding its text if it has not been seen before.
+     */
+    public synchronized int intern(Description description) {
+        int title = internString(description.getTitle());
+        int content = internString(description.getContent());
+        int author = internString(description.getAuthor());
+        int hash = (title * 31 + content) * 31 + author;
+        int mask = descriptionTable.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int handle = descriptionTable[slot];
+            if (handle < 0) {
+                break;
+            }
+            if (triples[handle * 3] == title && triples[handle * 3 + 1] == content && triples[handle * 3 + 2] == author) {
+                return handle;
+            }
+        }
+        if ((descriptionCount + 1) * 3 > triples.length) {
+            triples = Arrays.copyOf(triples, triples.length * 2);
+        }
+        int handle = descriptionCount;
+        if (handle == resolved.length()) {
+            resolved = grow(resolved, handle * 2);
+        }
+        int[] triples = this.triples;
+        triples[handle * 3] = title;
+        triples[handle * 3 + 1] = content;
+        triples[handle * 3 + 2] = author;
+        descriptionCount = handle + 1;
+        insertDescription(handle);
+        if (descriptionCount * 2 > descriptionTable.length) {
+            descriptionTable = newTable(descriptionTable.length * 2);
+            for (int h = 0; h < descriptionCount; h++) {
+                insertDescription(h);
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * The shared description behind a handle, decoded on the first call; takes no lock.
+     */
+    public Description resolve(int handle) {
+        if (handle < 0 || handle >= descriptionCount) {
+            throw new IllegalArgumentException("Unknown description handle: " + handle);
+        }
+        AtomicReferenceArray<Description> cache = resolved;
+        Description description = cache.get(handle);
+        if (description == null) {
+            int[] triples = this.triples;
+            description = new Description(string(triples[handle * 3]), string(triples[handle * 3 + 1]),
+                    string(triples[handle * 3 + 2]));
+            // A racing resolve() may win; a grow() racing with this may drop the entry, which is then decoded again
+            if (!cache.compareAndSet(handle, null, description)) {
+                description = cache.get(handle);
+            }
+        }
+        return description;
+    }
+
+    public int getDescriptionCount() {
+        return descriptionCount;
+    }
+
+    public int getStringCount() {
+        return stringCount;
+    }
+
+    /**
+     * Bytes of text held on the heap (mapped text is not counted).
+     */
+    public int getHeapTextBytes() {
+        return heapLength;
+    }
+
+    /**
+     * Saves the whole store so it can be reopened with map().
+     */
+    public synchronized void save(Path file) throws IOException {
+        int arenaLength = offsets[stringCount];
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + (stringCount + 1) * 4 + stringCount * 4
+                + descriptionCount * 12 + arenaLength);
+        out.putInt(MAGIC).putInt(VERSION).putInt(stringCount).putInt(descriptionCount).putInt(arenaLength);
+        for (int i = 0; i <= stringCount; i++) {
+            out.putInt(offsets[i]);
+        }
+        for (int i = 0; i < stringCount; i++) {
+            out.putInt(hashes[i]);
+        }
+        for (int i = 0; i < descriptionCount * 3; i++) {
+            out.putInt(triples[i]);
+        }
+        out.put(mappedArena.duplicate().clear());
+        out.put(heapArena, 0, heapLength);
+        out.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+    }
+
+    /**
+     * Opens a saved store with its text memory-mapped; only the small id tables are read onto the heap.
+     */
+    public static DescriptionStore map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.getInt() != MAGIC) {
+                throw new IllegalStateException("Not a description store file");
+            }
+            if (map.getInt() != VERSION) {
+                throw new IllegalStateException("Unsupported description store version");
+            }
+            int strings = map.getInt();
+            int descriptions = map.getInt();
+            int arenaLength = map.getInt();
+            int arenaStart = HEADER_SIZE + (strings + 1) * 4 + strings * 4 + descriptions * 12;
+
+            DescriptionStore store = new DescriptionStore(map.slice(arenaStart, arenaLength), strings);
+            store.offsets = new int[Math.max(64, strings + 1)];
+            store.hashes = new int[Math.max(64, strings)];
+            store.triples = new int[Math.max(48, descriptions * 3)];
+            for (int i = 0; i <= strings; i++) {
+                store.offsets[i] = map.getInt();
+            }
+            for (int i = 0; i < strings; i++) {
+                store.hashes[i] = map.getInt();
+            }
+            for (int i = 0; i < descriptions * 3; i++) {
+                store.triples[i] = map.getInt();
+            }
+            store.stringCount = strings;
+            store.resolved = new AtomicReferenceArray<>(Math.max(16, descriptions));
+            store.descriptionCount = descriptions;
+            store.stringTable = newTable(tableSizeFor(strings));
+            for (int i = 0; i < strings; i++) {
+                store.insertString(i);
+            }
+            store.descriptionTable = newTable(tableSizeFor(descriptions));
+            for (int h = 0; h < descriptions; h++) {
+                store.insertDescription(h);
+            }
+            return store;
+        }
+    }
+
+    private int internString(String value) {
+        if (value == null) {
+            return NULL_STRING;
+        }
+        int hash = value.hashCode();
+        int mask = stringTable.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = stringTable[slot];
+            if (id < 0) {
+                break;
+            }
+            if (hashes[id] == hash && value.equals(string(id))) {
+                return id;
+            }
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        byte[] heapArena = this.heapArena;
+        if (heapLength + bytes.length > heapArena.length) {
+            heapArena = Arrays.copyOf(heapArena, Math.max(heapArena.length * 2, heapLength + bytes.length));
+        }
+        System.arraycopy(bytes, 0, heapArena, heapLength, bytes.length);
+        this.heapArena = heapArena;
+        heapLength += bytes.length;
+
+        int[] offsets = this.offsets;
+        if (stringCount + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        int id = stringCount;
+        hashes[id] = hash;
+        offsets[id + 1] = offsets[id] + bytes.length;
+        this.offsets = offsets;
+        stringCount = id + 1;
+        insertString(id);
+        if (stringCount * 2 > stringTable.length) {
+            stringTable = newTable(stringTable.length * 2);
+            for (int i = 0; i < stringCount; i++) {
+                insertString(i);
+            }
+        }
+        return id;
+    }
+
+    private String string(int id) {
+        if (id == NULL_STRING) {
+            return null;
+        }
+        int[] offsets = this.offsets;
+        int start = offsets[id];
+        int length = offsets[id + 1] - start;
+        if (id < mappedCount) {
+            byte[] bytes = new byte[length];
+            mappedArena.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new String(heapArena, start - mappedArena.capacity(), length, StandardCharsets.UTF_8);
+    }
+
+    private void insertString(int id) {
+        int mask = stringTable.length - 1;
+        int slot = mix(hashes[id]) & mask;
+        while (stringTable[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        stringTable[slot] = id;
+    }
+
+    private void insertDescription(int handle) {
+        int hash = (triples[handle * 3] * 31 + triples[handle * 3 + 1]) * 31 + triples[handle * 3 + 2];
+        int mask = descriptionTable.length - 1;
+        int slot = mix(hash) & mask;
+        while (descriptionTable[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        descriptionTable[slot] = handle;
+    }
+
+    private static AtomicReferenceArray<Description> grow(AtomicReferenceArray<Description> cache, int length) {
+        AtomicReferenceArray<Description> grown = new AtomicReferenceArray<>(length);
+        for (int i = 0; i < cache.length(); i++) {
+            grown.set(i, cache.get(i));
+        }
+        return grown;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSizeFor(int entries) {
+        return Math.max(64, Integer.highestOneBit(Math.max(1, entries * 2 + 1)) << 1);
+    }
+
+    private static int[] newTable(int size) {
+        int[] table = new int[size];
+        Arrays.fill(table, -1);
+        return table;
+    }
+}
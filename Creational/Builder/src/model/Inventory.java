@@ -0,0 +1,270 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mutable inventory indexed by ItemType and item name.
+ * Running totals of value and weight are updated on every add and remove, so type checks,
+ * name lookups and encumbrance/value queries are constant time instead of list scans.
+ *
+ * Stackable items are held once per name in an ItemStack with a primitive count, so adding or
+ * removing potions only changes a number. Non-stackable items get one stack each. Counts never
+ * wrap: an add that would take the total past Integer.MAX_VALUE fails with ArithmeticException.
+ *
+ * Players and builders still keep one Item reference per unit, since Player.getItems() and the
+ * builders' item lists are List<Item> throughout the API; stacking only happens here, so build an
+ * Inventory from a player to work with stacks. A player holding 10,000 potions still holds
+ * 10,000 references (to one shared Item).
+ *
+ * Like the builders, an Inventory is not thread-safe; confine it to one thread or guard it externally.
+ */
+public class Inventory {
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+
+    private final Map<ItemType, List<ItemStack>> byType = new EnumMap<>(ItemType.class);
+    private final Map<String, List<ItemStack>> byName = new HashMap<>();
+    private final int[] quantityByType = new int[ITEM_TYPES.length];
+    private int size;
+    private int stackCount;
+    private long totalValue;
+    private long totalWeight;
+
+    public Inventory() {}
+
+    public Inventory(Collection<Item> items) {
+        for (Item item : items) {
+            add(item);
+        }
+    }
+
+    /**
+     * Creates an inventory seeded with the items the player was built with.
+     */
+    public static Inventory of(Player player) {
+        return new Inventory(player.getItems());
+    }
+
+    public void add(Item item) {
+        add(item, 1);
+    }
+
+    /**
+     * Adds the given quantity of an item. Stackable items merge into the existing stack of the same name.
+     */
+    public void add(Item item, int quantity) {
+        if (item == null || quantity <= 0) {
+            return;
+        }
+        // Every count is at most size, so checking size first means nothing below can overflow
+        Math.addExact(size, quantity);
+        if (item.isStackable()) {
+            ItemStack stack = findStack(item.getName());
+            if (stack != null) {
+                stack.setCount(Math.addExact(stack.getCount(), quantity));
+                // Totals use the stack's item so a merged duplicate never skews value or weight
+                updateTotals(stack.getItem(), quantity);
+                return;
+            }
+            addStack(new ItemStack(item, quantity));
+        } else {
+            for (int i = 0; i < quantity; i++) {
+                addStack(new ItemStack(item, 1));
+            }
+        }
+        updateTotals(item, quantity);
+    }
+
+    /**
+     * Removes one of the item; returns false if it was not in the inventory.
+     * Stackable items are matched by name, non-stackable items by identity.
+     */
+    public boolean remove(Item item) {
+        if (item == null) {
+            return false;
+        }
+        if (item.isStackable()) {
+            return removeQuantity(item.getName(), 1) == 1;
+        }
+        List<ItemStack> sameName = byName.get(item.getName());
+        if (sameName != null) {
+            for (ItemStack stack : sameName) {
+                if (stack.getItem() == item) {
+                    removeStack(stack);
+                    updateTotals(item, -1);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes up to the given quantity from the stackable stack with that name; non-stackable
+     * items of the same name are left alone (remove them with remove(item)).
+     * Returns how many were actually removed.
+     */
+    public int removeQuantity(String name, int quantity) {
+        ItemStack stack = findStack(name);
+        if (stack == null || quantity <= 0) {
+            return 0;
+        }
+        int taken = Math.min(stack.getCount(), quantity);
+        if (taken == stack.getCount()) {
+            removeStack(stack);
+        } else {
+            stack.setCount(stack.getCount() - taken);
+        }
+        updateTotals(stack.getItem(), -taken);
+        return taken;
+    }
+
+    public boolean hasType(ItemType itemType) {
+        return quantityByType[itemType.ordinal()] > 0;
+    }
+
+    /**
+     * Total quantity held of the given type, counting every item in a stack.
+     */
+    public int countOf(ItemType itemType) {
+        return quantityByType[itemType.ordinal()];
+    }
+
+    public List<ItemStack> getStacks(ItemType itemType) {
+        List<ItemStack> sameType = byType.get(itemType);
+        return sameType == null ? Collections.emptyList() : Collections.unmodifiableList(sameType);
+    }
+
+    public boolean contains(String name) {
+        return byName.containsKey(name);
+    }
+
+    /**
+     * Returns an item with the given name, or null if there is none.
+     */
+    public Item findByName(String name) {
+        List<ItemStack> sameName = byName.get(name);
+        return sameName == null ? null : sameName.get(0).getItem();
+    }
+
+    /**
+     * Total quantity held of items with the given name.
+     */
+    public int countOf(String name) {
+        List<ItemStack> sameName = byName.get(name);
+        if (sameName == null) {
+            return 0;
+        }
+        int count = 0;
+        for (ItemStack stack : sameName) {
+            count += stack.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns a snapshot of every stack, grouped by type.
+     */
+    public List<ItemStack> getStacks() {
+        List<ItemStack> all = new ArrayList<>(stackCount);
+        for (List<ItemStack> sameType : byType.values()) {
+            all.addAll(sameType);
+        }
+        return all;
+    }
+
+    /**
+     * Returns a snapshot of every item, grouped by type, with stacks expanded to one entry per item.
+     */
+    public List<Item> getItems() {
+        List<Item> all = new ArrayList<>(size);
+        for (List<ItemStack> sameType : byType.values()) {
+            for (ItemStack stack : sameType) {
+                for (int i = 0; i < stack.getCount(); i++) {
+                    all.add(stack.getItem());
+                }
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Total number of items held, counting every item in a stack.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getStackCount() {
+        return stackCount;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTotalValue() {
+        return totalValue;
+    }
+
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    private ItemStack findStack(String name) {
+        List<ItemStack> sameName = byName.get(name);
+        if (sameName != null) {
+            for (ItemStack stack : sameName) {
+                if (stack.getItem().isStackable()) {
+                    return stack;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void addStack(ItemStack stack) {
+        Item item = stack.getItem();
+        byType.computeIfAbsent(item.getItemType(), type -> new ArrayList<>()).add(stack);
+        byName.computeIfAbsent(item.getName(), name -> new ArrayList<>(1)).add(stack);
+        stackCount++;
+    }
+
+    private void removeStack(ItemStack stack) {
+        Item item = stack.getItem();
+        List<ItemStack> sameType = byType.get(item.getItemType());
+        sameType.remove(stack);
+        if (sameType.isEmpty()) {
+            byType.remove(item.getItemType());
+        }
+        List<ItemStack> sameName = byName.get(item.getName());
+        sameName.remove(stack);
+        if (sameName.isEmpty()) {
+            byName.remove(item.getName());
+        }
+        stackCount--;
+    }
+
+    private void updateTotals(Item item, int quantity) {
+        size += quantity;
+        quantityByType[item.getItemType().ordinal()] += quantity;
+        totalValue += (long) item.getValue() * quantity;
+        totalWeight += (long) item.getWeight() * quantity;
+    }
+
+    @Override
+    public String toString() {
+        return "Inventory{" +
+                "size=" + size +
+                ", stacks=" + stackCount +
+                ", totalValue=" + totalValue +
+                ", totalWeight=" + totalWeight +
+                ", items=" + byType +
+                '}';
+    }
+}
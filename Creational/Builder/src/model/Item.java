@@ -1,5 +1,7 @@
 package model;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,12 +12,31 @@ public class Item {
     private int value;
     private int weight;
     private boolean isStackable;
+    // When set, descriptions live in the shared store and are resolved on demand
+    private DescriptionStore descriptionStore;
+    private int[] descriptionHandles;
+    // The store's shared descriptions, looked up on the first getItemDescription() call
+    private volatile Optional<List<Description>> resolvedDescriptions;
 
     // Private constructor for builder
     private Item(ItemBuilder builder) {
         this.name = builder.name;
         this.itemType = builder.itemType;
-        this.itemDescription = builder.itemDescription;
+        if (builder.descriptionHandles != null) {
+            this.descriptionStore = builder.descriptionStore;
+            this.descriptionHandles = builder.descriptionHandles.clone();
+            this.itemDescription = Optional.empty();
+        } else if (builder.descriptionStore != null && builder.itemDescription.isPresent()) {
+            List<Description> descriptions = builder.itemDescription.get();
+            this.descriptionStore = builder.descriptionStore;
+            this.descriptionHandles = new int[descriptions.size()];
+            for (int i = 0; i < descriptionHandles.length; i++) {
+                descriptionHandles[i] = descriptionStore.intern(descriptions.get(i));
+            }
+            this.itemDescription = Optional.empty();
+        } else {
+            this.itemDescription = builder.itemDescription;
+        }
         this.value = builder.value;
         this.weight = builder.weight;
         this.isStackable = builder.isStackable;
@@ -31,7 +52,19 @@ public class Item {
     }
 
     public Optional<List<Description>> getItemDescription() {
-        return itemDescription;
+        if (descriptionHandles == null) {
+            return itemDescription;
+        }
+        Optional<List<Description>> resolved = resolvedDescriptions;
+        if (resolved == null) {
+            List<Description> descriptions = new ArrayList<>(descriptionHandles.length);
+            for (int handle : descriptionHandles) {
+                descriptions.add(descriptionStore.resolve(handle));
+            }
+            resolved = Optional.of(Collections.unmodifiableList(descriptions));
+            resolvedDescriptions = resolved;
+        }
+        return resolved;
     }
 
     public int getValue() {
@@ -51,7 +84,7 @@ public class Item {
         return "Item{" +
                 "name='" + name + '\'' +
                 ", itemType=" + itemType +
-                ", itemDescription=" + itemDescription +
+                ", itemDescription=" + getItemDescription() +
                 ", value=" + value +
                 ", weight=" + weight +
                 ", isStackable=" + isStackable +
@@ -71,6 +104,8 @@ public class Item {
         private int value = 0;
         private int weight = 1;
         private boolean isStackable = false;
+        private DescriptionStore descriptionStore;
+        private int[] descriptionHandles;
 
         public ItemBuilder name(String name) {
             this.name = name;
@@ -102,6 +137,26 @@ public class Item {
             return this;
         }
 
+        /**
+         * Keeps the descriptions deduplicated in the given store instead of on the item.
+         */
+        public ItemBuilder descriptionStore(DescriptionStore descriptionStore) {
+            this.descriptionStore = descriptionStore;
+            return this;
+        }
+
+        /**
+         * Uses descriptions already interned in the store, e.g. lore interned once into static handles.
+         */
+        public ItemBuilder storedDescriptions(DescriptionStore descriptionStore, int... handles) {
+            if (descriptionStore == null) {
+                throw new IllegalArgumentException("Description store cannot be null");
+            }
+            this.descriptionStore = descriptionStore;
+            this.descriptionHandles = handles;
+            return this;
+        }
+
         public Item build() {
             if (name == null || name.trim().isEmpty()) {
                 throw new IllegalStateException("Item name cannot be null or empty");
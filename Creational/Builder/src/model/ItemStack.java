@@ -0,0 +1,37 @@
+package model;
+
+/**
+ * One inventory entry: an item and how many of it are held.
+ * Stackable items share a single stack whose count changes in place;
+ * non-stackable items always have their own stack with a count of one.
+ */
+public class ItemStack {
+    private final Item item;
+    private int count;
+
+    ItemStack(Item item, int count) {
+        this.item = item;
+        this.count = count;
+    }
+
+    // Getters
+    public Item getItem() {
+        return item;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    void setCount(int count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemStack{" +
+                "item=" + item.getName() +
+                ", count=" + count +
+                '}';
+    }
+}
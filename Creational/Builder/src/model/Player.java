@@ -2,40 +2,191 @@ package model;
 
 import builders.BasicPlayerBuilder;
 import builders.BuilderData;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class Player {
-    private String name;
-    private Integer health;
-    private Boolean isAlive;
-    private List<Item> items;
-    private List<Player> friends;
-    private Level level;
-    private List<Weapon> weapons;
-
-    // Private constructor for builder pattern using BuilderData interface
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(1);
+    // Ids below NEXT_ID never handed out because a restored id jumped ahead, as start -> end (exclusive); guarded by itself
+    private static final TreeMap<Integer, Integer> UNUSED_IDS = new TreeMap<>();
+    private static final PlayerListener[] NO_LISTENERS = new PlayerListener[0];
+    private static final AtomicReferenceFieldUpdater<Player, PlayerSnapshot> SNAPSHOT =
+            AtomicReferenceFieldUpdater.newUpdater(Player.class, PlayerSnapshot.class, "snapshot");
+
+    private final int id;
+    private final String name;
+    private int health;
+    private boolean isAlive;
+    private final List<Item> items;
+    private final List<Player> friends;
+    private final Level level;
+    private final List<Weapon> weapons;
+    private volatile PlayerListener[] listeners = NO_LISTENERS;
+    // Mutations so far, written only by the mutating thread, and the last published view,
+    // created on first use so players nobody reads concurrently never carry one
+    private long mutations;
+    private volatile PlayerSnapshot snapshot;
+
+    // Private constructor for builder pattern using BuilderData interface.
+    // Collections are copied into compact immutable lists so the builder can be reset and reused,
+    // and health/isAlive are kept as primitives to avoid a boxed object per player.
     public Player(BuilderData builderData) {
-        this.name = builderData.getName();
-        this.health = builderData.getHealth();
-        this.isAlive = builderData.getIsAlive();
-        this.items = builderData.getItems();
-        this.friends = builderData.getFriends();
-        this.level = builderData.getLevel();
-        this.weapons = builderData.getWeapons();
+        this(builderData, NEXT_ID.getAndIncrement());
+    }
+
+    // Restores a player with a known id (e.g. when loading a save); later ids continue after it.
+    // Ids are unique per process: fails if the id was already handed out or restored.
+    public Player(int id, BuilderData builderData) {
+        this(builderData, requireUnusedId(id));
+    }
+
+    private Player(BuilderData builderData, int id) {
+        this(id, builderData.getName(), builderData.getHealth(), !Boolean.FALSE.equals(builderData.getIsAlive()),
+                builderData.getItems(), builderData.getFriends(), builderData.getLevel(), builderData.getWeapons());
+    }
+
+    // Direct constructor path for the generated builders in builders.generated
+    public Player(String name, int health, boolean isAlive, List<Item> items, List<Player> friends,
+                  Level level, List<Weapon> weapons) {
+        this(NEXT_ID.getAndIncrement(), name, health, isAlive, items, friends, level, weapons);
+    }
+
+    private Player(int id, String name, int health, boolean isAlive, List<Item> items, List<Player> friends,
+                   Level level, List<Weapon> weapons) {
+        this.id = id;
+        this.name = name;
+        this.health = health;
+        this.isAlive = isAlive;
+        this.items = CompactList.copyOf(items);
+        this.friends = CompactList.copyOf(friends);
+        this.level = level;
+        this.weapons = CompactList.copyOf(weapons);
+    }
+
+    /**
+     * Restores a player with its saved id if that id is not in use in this process, or with a
+     * fresh id if it is (e.g. when the same save is loaded twice). Callers resolving references
+     * by saved id must map them to getId() of the returned player.
+     */
+    public static Player restore(int id, BuilderData builderData) {
+        return new Player(builderData, claimId(id) ? id : NEXT_ID.getAndIncrement());
+    }
+
+    private static int requireUnusedId(int id) {
+        if (!claimId(id)) {
+            throw new IllegalStateException("Player id " + id + " is already in use");
+        }
+        return id;
+    }
+
+    // Marks the id as used; false if it already was
+    private static boolean claimId(int id) {
+        if (id <= 0 || id == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Player id must be positive and below " + Integer.MAX_VALUE);
+        }
+        synchronized (UNUSED_IDS) {
+            while (true) {
+                int next = NEXT_ID.get();
+                if (id >= next) {
+                    if (NEXT_ID.compareAndSet(next, id + 1)) {
+                        if (id > next) {
+                            UNUSED_IDS.put(next, id);
+                        }
+                        return true;
+                    }
+                    continue; // Raced with a new player taking the next id
+                }
+                Map.Entry<Integer, Integer> gap = UNUSED_IDS.floorEntry(id);
+                if (gap == null || id >= gap.getValue()) {
+                    return false;
+                }
+                UNUSED_IDS.remove(gap.getKey());
+                if (gap.getKey() < id) {
+                    UNUSED_IDS.put(gap.getKey(), id);
+                }
+                if (id + 1 < gap.getValue()) {
+                    UNUSED_IDS.put(id + 1, gap.getValue());
+                }
+                return true;
+            }
+        }
     }
 
     public boolean takeDamage(int damage){
-        if (health.intValue() - damage >= 0) {
-            this.health = Integer.valueOf(health.intValue() - damage);
+        if (health - damage >= 0) {
+            int previousHealth = health;
+            this.health = health - damage;
             if (this.health == 0) {
                 this.isAlive = false;
             }
+            mutations++;
+            for (PlayerListener listener : listeners) {
+                listener.onHealthChanged(this, previousHealth);
+            }
             return true;
         }
         return false;
     }
 
+    public synchronized void addListener(PlayerListener listener) {
+        PlayerListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        this.listeners = updated;
+    }
+
+    public synchronized void removeListener(PlayerListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                PlayerListener[] updated = new PlayerListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, updated, 0, i);
+                System.arraycopy(listeners, i + 1, updated, i, listeners.length - i - 1);
+                this.listeners = updated.length == 0 ? NO_LISTENERS : updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publishes the current state for concurrent readers, e.g. after a batch of takeDamage calls.
+     * Call it from the thread that mutates this player; does nothing if nothing changed.
+     */
+    public PlayerSnapshot publishSnapshot() {
+        PlayerSnapshot published = snapshot;
+        // Health and alive are compared too: a snapshot first created by a reader may have seen them mid-update
+        if (published == null || published.getVersion() != mutations
+                || published.getHealth() != health || published.isAlive() != isAlive) {
+            published = newSnapshot();
+            snapshot = published;
+        }
+        return published;
+    }
+
+    /**
+     * The last published snapshot: a consistent view that is safe to read from any thread without locking.
+     * If nothing was published yet, the first call publishes the player's current state.
+     */
+    public PlayerSnapshot getSnapshot() {
+        PlayerSnapshot published = snapshot;
+        if (published == null) {
+            SNAPSHOT.compareAndSet(this, null, newSnapshot());
+            published = snapshot;
+        }
+        return published;
+    }
+
+    private PlayerSnapshot newSnapshot() {
+        return new PlayerSnapshot(mutations, id, name, health, isAlive, items, friends, level, weapons);
+    }
+
     // Getters
+    public int getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
@@ -67,16 +218,29 @@ public class Player {
     @Override
     public String toString() {
         return "Player{" +
-                "name='" + name + '\'' +
+                "id=" + id +
+                ", name='" + name + '\'' +
                 ", health=" + health +
                 ", isAlive=" + isAlive +
                 ", items=" + items +
-                ", friends=" + friends +
+                ", friendIds=" + friendIds() +
                 ", level=" + level +
                 ", weapons=" + weapons +
                 '}';
     }
 
+    // Friends are printed by id so friendship chains never recurse through toString
+    private String friendIds() {
+        StringBuilder ids = new StringBuilder("[");
+        for (int i = 0; i < friends.size(); i++) {
+            if (i > 0) {
+                ids.append(", ");
+            }
+            ids.append(friends.get(i).getId());
+        }
+        return ids.append(']').toString();
+    }
+
     // Static factory methods to get different types of builders
     public static BasicPlayerBuilder builder() {
         return new BasicPlayerBuilder();
@@ -1,9 +1,11 @@
 package model;
 
 import builders.BasicPlayerBuilder;
+import builders.BuilderPool;
 import builders.MageBuilder;
 import builders.WarriorBuilder;
 import java.util.Arrays;
+import metrics.ConstructionMetrics;
 
 /**
  * Director class for creating different types of Players using the Builder pattern.
@@ -12,13 +14,40 @@ import java.util.Arrays;
  * 
  * The Director now works with the PlayerBuilder interface, allowing flexibility
  * in which concrete builder implementation to use.
+ *
+ * Builders are borrowed from the thread-local BuilderPool, so repeated director
+ * calls on one thread reuse the same builder instances. Each recipe is counted and
+ * timed in ConstructionMetrics.
  */
 public class PlayerDirector {
+    private static final ConstructionMetrics.Recorder NEWBIE_METRICS = ConstructionMetrics.global().recipeRecorder("PlayerDirector.createNewbie");
+    private static final ConstructionMetrics.Recorder WARRIOR_METRICS = ConstructionMetrics.global().recipeRecorder("PlayerDirector.createWarrior");
+    private static final ConstructionMetrics.Recorder MAGE_METRICS = ConstructionMetrics.global().recipeRecorder("PlayerDirector.createMage");
+    private static final ConstructionMetrics.Recorder QUEST_GIVER_METRICS = ConstructionMetrics.global().recipeRecorder("PlayerDirector.createQuestGiver");
+
+    // Standard lore is interned once; recipes only copy the handles
+    private static final int SWORD_LORE = DescriptionStore.shared().intern(new Description("Ancient Weapon",
+            "A sword forged in dragon fire, imbued with ancient magic",
+            "Master Smith Thorin"));
+    private static final int SPELLBOOK_LORE = DescriptionStore.shared().intern(new Description("Ancient Knowledge",
+            "Contains the most powerful spells known to wizardkind"));
 
     /**
      * Creates a new player character with basic starting equipment using BasicPlayerBuilder
      */
     public Player createNewbie(String name) {
+        long start = NEWBIE_METRICS.start();
+        boolean built = false;
+        try {
+            Player player = newbie(name);
+            built = true;
+            return player;
+        } finally {
+            NEWBIE_METRICS.stop(start, built);
+        }
+    }
+
+    private Player newbie(String name) {
         Level beginnerLevel = new Level("Beginner", 1);
 
         Weapon basicSword = new Weapon("Training Sword", 10, WeaponType.SWORD);
@@ -39,32 +68,45 @@ public class PlayerDirector {
                 .isStackable(false)
                 .build();
 
-        return ((BasicPlayerBuilder) new BasicPlayerBuilder()
-                .name(name)
-                .health(100)
-                .level(beginnerLevel)
-                .addWeapon(basicSword)
-                .addItem(healthPotion)
-                .addItem(basicArmor)).build();
+        BasicPlayerBuilder builder = BuilderPool.basic();
+        try {
+            return ((BasicPlayerBuilder) builder
+                    .name(name)
+                    .health(100)
+                    .level(beginnerLevel)
+                    .addWeapon(basicSword)
+                    .addItem(healthPotion)
+                    .addItem(basicArmor)).build();
+        } finally {
+            BuilderPool.release(builder);
+        }
     }
 
     /**
      * Creates an experienced warrior with advanced equipment using WarriorBuilder
      */
     public Player createWarrior(String name) {
+        long start = WARRIOR_METRICS.start();
+        boolean built = false;
+        try {
+            Player player = warrior(name);
+            built = true;
+            return player;
+        } finally {
+            WARRIOR_METRICS.stop(start, built);
+        }
+    }
+
+    private Player warrior(String name) {
         Level warriorLevel = new Level("Warrior", 25);
 
         Weapon enchantedSword = new Weapon("Flame Sword", 45, WeaponType.SWORD, true);
         Weapon battleAxe = new Weapon("War Axe", 50, WeaponType.AXE);
 
-        Description swordLore = new Description("Ancient Weapon",
-                "A sword forged in dragon fire, imbued with ancient magic",
-                "Master Smith Thorin");
-
         Item magicArmor = Item.builder()
                 .name("Enchanted Plate Mail")
                 .itemType(ItemType.ARMOR)
-                .itemDescription(Arrays.asList(swordLore))
+                .storedDescriptions(DescriptionStore.shared(), SWORD_LORE)
                 .value(1500)
                 .weight(20)
                 .isStackable(false)
@@ -78,32 +120,46 @@ public class PlayerDirector {
                 .isStackable(true)
                 .build();
 
-        return ((WarriorBuilder) new WarriorBuilder()
-                .name(name)
-                .health(250)
-                .level(warriorLevel)
-                .addWeapon(enchantedSword)
-                .addWeapon(battleAxe)
-                .addItem(magicArmor)
-                .addItem(manaPotion)).build();
+        WarriorBuilder builder = BuilderPool.warrior();
+        try {
+            return ((WarriorBuilder) builder
+                    .name(name)
+                    .health(250)
+                    .level(warriorLevel)
+                    .addWeapon(enchantedSword)
+                    .addWeapon(battleAxe)
+                    .addItem(magicArmor)
+                    .addItem(manaPotion)).build();
+        } finally {
+            BuilderPool.release(builder);
+        }
     }
 
     /**
      * Creates a mage character specialized in magic using MageBuilder
      */
     public Player createMage(String name) {
+        long start = MAGE_METRICS.start();
+        boolean built = false;
+        try {
+            Player player = mage(name);
+            built = true;
+            return player;
+        } finally {
+            MAGE_METRICS.stop(start, built);
+        }
+    }
+
+    private Player mage(String name) {
         Level mageLevel = new Level("Archmage", 30);
 
         Weapon magicStaff = new Weapon("Staff of Elements", 35, WeaponType.STAFF, true);
         Weapon crystalWand = new Weapon("Crystal Wand", 25, WeaponType.WAND, true);
 
-        Description spellbookDesc = new Description("Ancient Knowledge",
-                "Contains the most powerful spells known to wizardkind");
-
         Item spellbook = Item.builder()
                 .name("Grimoire of Power")
                 .itemType(ItemType.MAGIC)
-                .itemDescription(Arrays.asList(spellbookDesc))
+                .storedDescriptions(DescriptionStore.shared(), SPELLBOOK_LORE)
                 .value(5000)
                 .weight(3)
                 .isStackable(false)
@@ -117,22 +173,40 @@ public class PlayerDirector {
                 .isStackable(false)
                 .build();
 
-        return ((MageBuilder) new MageBuilder()
-                .name(name)
-                .health(150)
-                .level(mageLevel)
-                .addWeapon(magicStaff)
-                .addWeapon(crystalWand)
-                .addItem(spellbook)
-                .addItem(magicRobe)).build();
+        MageBuilder builder = BuilderPool.mage();
+        try {
+            return ((MageBuilder) builder
+                    .name(name)
+                    .health(150)
+                    .level(mageLevel)
+                    .addWeapon(magicStaff)
+                    .addWeapon(crystalWand)
+                    .addItem(spellbook)
+                    .addItem(magicRobe)).build();
+        } finally {
+            BuilderPool.release(builder);
+        }
     }
 
     /**
      * Creates a quest NPC with specific quest items using BasicPlayerBuilder
      */
     public Player createQuestGiver(String name, String questName) {
+        long start = QUEST_GIVER_METRICS.start();
+        boolean built = false;
+        try {
+            Player player = questGiver(name, questName);
+            built = true;
+            return player;
+        } finally {
+            QUEST_GIVER_METRICS.stop(start, built);
+        }
+    }
+
+    private Player questGiver(String name, String questName) {
         Level npcLevel = new Level("Quest Giver", 50);
 
+        // Per-quest text stays on the item: the shared store never evicts
         Description questDesc = new Description("Important Quest",
                 "This item is crucial for completing " + questName,
                 "Quest Master");
@@ -154,11 +228,16 @@ public class PlayerDirector {
                 .isStackable(false)
                 .build();
 
-        return ((BasicPlayerBuilder) new BasicPlayerBuilder()
-                .name(name)
-                .health(500)
-                .level(npcLevel)
-                .addItem(questItem)
-                .addItem(mysteriousKey)).build();
+        BasicPlayerBuilder builder = BuilderPool.basic();
+        try {
+            return ((BasicPlayerBuilder) builder
+                    .name(name)
+                    .health(500)
+                    .level(npcLevel)
+                    .addItem(questItem)
+                    .addItem(mysteriousKey)).build();
+        } finally {
+            BuilderPool.release(builder);
+        }
     }
 }
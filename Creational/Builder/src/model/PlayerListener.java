@@ -0,0 +1,9 @@
+package model;
+
+/**
+ * Callback for observing changes to a Player's mutable state.
+ * Listeners run on the thread that changed the player, so they should be cheap.
+ */
+public interface PlayerListener {
+    void onHealthChanged(Player player, int previousHealth);
+}
@@ -0,0 +1,82 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Immutable, versioned view of a Player as of its last publishSnapshot().
+ *
+ * The version is the number of mutations the snapshot reflects, so two snapshots of the same
+ * player with equal versions hold the same state. The lists are the player's own immutable
+ * lists, shared rather than copied; friends are live players, read theirs via getSnapshot().
+ */
+public final class PlayerSnapshot {
+    private final long version;
+    private final int id;
+    private final String name;
+    private final int health;
+    private final boolean isAlive;
+    private final List<Item> items;
+    private final List<Player> friends;
+    private final Level level;
+    private final List<Weapon> weapons;
+
+    PlayerSnapshot(long version, int id, String name, int health, boolean isAlive, List<Item> items,
+                   List<Player> friends, Level level, List<Weapon> weapons) {
+        this.version = version;
+        this.id = id;
+        this.name = name;
+        this.health = health;
+        this.isAlive = isAlive;
+        this.items = items;
+        this.friends = friends;
+        this.level = level;
+        this.weapons = weapons;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getHealth() {
+        return health;
+    }
+
+    public boolean isAlive() {
+        return isAlive;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public List<Player> getFriends() {
+        return friends;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public List<Weapon> getWeapons() {
+        return weapons;
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerSnapshot{" +
+                "version=" + version +
+                ", id=" + id +
+                ", name='" + name + '\'' +
+                ", health=" + health +
+                ", isAlive=" + isAlive +
+                '}';
+    }
+}
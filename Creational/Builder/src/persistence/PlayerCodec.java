@@ -0,0 +1,385 @@
+package persistence;
+
+import builders.BuilderData;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import model.*;
+
+/**
+ * Versioned binary format for Players and their Item/Weapon/Level/Description graph.
+ *
+ * Layout: a header (magic, version) followed by player records. Integers are varints,
+ * ItemType/WeaponType are written as ordinals, and every string goes through a per-stream
+ * string table, so a repeated name like "Health Potion" costs one or two bytes after its
+ * first occurrence. Friends are written as player ids, and each friend record precedes
+ * the records that reference it, so a stream can be decoded front to back.
+ *
+ * Decoded players keep their saved ids unless an id is already in use in this process (e.g.
+ * the same stream is decoded twice); such a player gets a fresh id (see Player.restore()).
+ * Friend references are resolved by saved id, so links stay correct either way.
+ */
+public final class PlayerCodec {
+    static final int MAGIC = 0x504C5952; // "PLYR"
+    static final byte VERSION = 1;
+
+    private static final int FLAG_ALIVE = 1;
+    private static final int FLAG_HAS_LEVEL = 1 << 1;
+    private static final int FLAG_STACKABLE = 1;
+    private static final int FLAG_HAS_DESCRIPTION = 1 << 1;
+    private static final int FLAG_MAGICAL = 1;
+
+    // String references: 0 is null, 1 introduces a new literal, n >= 2 is table entry n - 2
+    private static final int STRING_NULL = 0;
+    private static final int STRING_LITERAL = 1;
+    private static final int STRING_TABLE_BASE = 2;
+
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+    private static final WeaponType[] WEAPON_TYPES = WeaponType.values();
+
+    private PlayerCodec() {}
+
+    /**
+     * Starts a new stream in the given buffer by writing the header.
+     */
+    public static Encoder encoder(ByteBuffer out) {
+        out.putInt(MAGIC);
+        out.put(VERSION);
+        return new Encoder(out);
+    }
+
+    /**
+     * Opens a stream from the given buffer, checking the header.
+     */
+    public static Decoder decoder(ByteBuffer in) {
+        return decoder(in, Collections.emptyMap());
+    }
+
+    /**
+     * Opens a stream whose friend ids may also refer to already-loaded players.
+     */
+    public static Decoder decoder(ByteBuffer in, Map<Integer, Player> knownPlayers) {
+        if (in.getInt() != MAGIC) {
+            throw new IllegalStateException("Not a player stream");
+        }
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported player stream version: " + version);
+        }
+        return new Decoder(in, knownPlayers);
+    }
+
+    /**
+     * Writes player records into a ByteBuffer.
+     *
+     * Records are written whole: if the buffer fills up mid-record the position and string
+     * table are rolled back and the BufferOverflowException is rethrown, so the caller can
+     * drain the buffer (or switch to a new one) and call writePlayer again.
+     */
+    public static final class Encoder {
+        private ByteBuffer out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final List<String> pendingStrings = new ArrayList<>();
+        private final Set<Integer> writtenIds = new HashSet<>();
+
+        Encoder(ByteBuffer out) {
+            this.out = out;
+        }
+
+        /**
+         * Continues the same stream (same string table) in another buffer.
+         */
+        public void switchBuffer(ByteBuffer out) {
+            this.out = out;
+        }
+
+        public void writeAll(Collection<Player> players) {
+            for (Player player : players) {
+                writePlayer(player);
+            }
+        }
+
+        /**
+         * Writes the player and any of its friends not yet in the stream, friends first.
+         */
+        public void writePlayer(Player player) {
+            Deque<Player> stack = new ArrayDeque<>();
+            stack.push(player);
+            while (!stack.isEmpty()) {
+                Player top = stack.peek();
+                boolean friendsPending = false;
+                for (Player friend : top.getFriends()) {
+                    if (!writtenIds.contains(friend.getId())) {
+                        stack.push(friend);
+                        friendsPending = true;
+                    }
+                }
+                if (!friendsPending) {
+                    stack.pop();
+                    if (!writtenIds.contains(top.getId())) {
+                        writeRecord(top);
+                        writtenIds.add(top.getId());
+                    }
+                }
+            }
+        }
+
+        private void writeRecord(Player player) {
+            int mark = out.position();
+            try {
+                Varint.writeUnsigned(out, player.getId());
+                writeString(player.getName());
+                Varint.writeSigned(out, player.getHealth());
+                Level level = player.getLevel();
+                int flags = (player.getIsAlive() ? FLAG_ALIVE : 0) | (level != null ? FLAG_HAS_LEVEL : 0);
+                out.put((byte) flags);
+                if (level != null) {
+                    writeString(level.getName());
+                    Varint.writeSigned(out, level.getCode());
+                }
+
+                List<Item> items = player.getItems();
+                Varint.writeUnsigned(out, items.size());
+                for (Item item : items) {
+                    writeItem(item);
+                }
+
+                List<Weapon> weapons = player.getWeapons();
+                Varint.writeUnsigned(out, weapons.size());
+                for (Weapon weapon : weapons) {
+                    writeWeapon(weapon);
+                }
+
+                List<Player> friends = player.getFriends();
+                Varint.writeUnsigned(out, friends.size());
+                for (Player friend : friends) {
+                    Varint.writeUnsigned(out, friend.getId());
+                }
+                pendingStrings.clear();
+            } catch (BufferOverflowException e) {
+                out.position(mark);
+                for (String s : pendingStrings) {
+                    strings.remove(s);
+                }
+                pendingStrings.clear();
+                throw e;
+            }
+        }
+
+        private void writeItem(Item item) {
+            writeString(item.getName());
+            out.put((byte) item.getItemType().ordinal());
+            Varint.writeSigned(out, item.getValue());
+            Varint.writeSigned(out, item.getWeight());
+            List<Description> descriptions = item.getItemDescription().orElse(null);
+            int flags = (item.isStackable() ? FLAG_STACKABLE : 0) | (descriptions != null ? FLAG_HAS_DESCRIPTION : 0);
+            out.put((byte) flags);
+            if (descriptions != null) {
+                Varint.writeUnsigned(out, descriptions.size());
+                for (Description description : descriptions) {
+                    writeString(description.getTitle());
+                    writeString(description.getContent());
+                    writeString(description.getAuthor());
+                }
+            }
+        }
+
+        private void writeWeapon(Weapon weapon) {
+            writeString(weapon.getName());
+            Varint.writeSigned(out, weapon.getDamage());
+            WeaponType type = weapon.getWeaponType();
+            out.put((byte) (type != null ? type.ordinal() + 1 : 0));
+            out.put((byte) (weapon.isMagical() ? FLAG_MAGICAL : 0));
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                Varint.writeUnsigned(out, STRING_NULL);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                Varint.writeUnsigned(out, index + STRING_TABLE_BASE);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            Varint.writeUnsigned(out, STRING_LITERAL);
+            Varint.writeUnsigned(out, bytes.length);
+            out.put(bytes);
+            strings.put(value, strings.size());
+            pendingStrings.add(value);
+        }
+    }
+
+    /**
+     * Reads player records from a ByteBuffer, front to back.
+     *
+     * Records are read whole: if the buffer runs out mid-record the position and string table
+     * are rolled back and the BufferUnderflowException is rethrown, so the caller can refill
+     * the buffer (compact, read more, flip) and call readPlayer again. switchBuffer is only
+     * safe at a record boundary, since the partial record stays in the old buffer.
+     */
+    public static final class Decoder {
+        private ByteBuffer in;
+        private final List<String> strings = new ArrayList<>();
+        private final Map<Integer, Player> players;
+        private byte[] scratch = new byte[64];
+
+        Decoder(ByteBuffer in, Map<Integer, Player> knownPlayers) {
+            this.in = in;
+            this.players = new HashMap<>(knownPlayers);
+        }
+
+        /**
+         * Continues the same stream (same string table) from another buffer. Only call this
+         * between records; a record cut short must be refilled in place (see readPlayer).
+         */
+        public void switchBuffer(ByteBuffer in) {
+            this.in = in;
+        }
+
+        public boolean hasRemaining() {
+            return in.hasRemaining();
+        }
+
+        public List<Player> readAll() {
+            List<Player> result = new ArrayList<>();
+            while (in.hasRemaining()) {
+                result.add(readPlayer());
+            }
+            return result;
+        }
+
+        public Player readPlayer() {
+            int mark = in.position();
+            int stringCount = strings.size();
+            try {
+                return readRecord();
+            } catch (BufferUnderflowException e) {
+                in.position(mark);
+                strings.subList(stringCount, strings.size()).clear();
+                throw e;
+            }
+        }
+
+        private Player readRecord() {
+            DecodedPlayer data = new DecodedPlayer();
+            int id = Varint.readUnsigned(in);
+            data.name = readString();
+            data.health = Varint.readSigned(in);
+            int flags = in.get();
+            data.isAlive = (flags & FLAG_ALIVE) != 0;
+            if ((flags & FLAG_HAS_LEVEL) != 0) {
+                data.level = new Level(readString(), Varint.readSigned(in));
+            }
+
+            int itemCount = Varint.readUnsigned(in);
+            data.items = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                data.items.add(readItem());
+            }
+
+            int weaponCount = Varint.readUnsigned(in);
+            data.weapons = new ArrayList<>(weaponCount);
+            for (int i = 0; i < weaponCount; i++) {
+                data.weapons.add(readWeapon());
+            }
+
+            int friendCount = Varint.readUnsigned(in);
+            data.friends = new ArrayList<>(friendCount);
+            for (int i = 0; i < friendCount; i++) {
+                int friendId = Varint.readUnsigned(in);
+                Player friend = players.get(friendId);
+                if (friend == null) {
+                    throw new IllegalStateException("Unknown friend id " + friendId + " for player " + id);
+                }
+                data.friends.add(friend);
+            }
+
+            Player player = Player.restore(id, data);
+            players.put(id, player);
+            return player;
+        }
+
+        private Item readItem() {
+            Item.ItemBuilder builder = Item.builder()
+                    .name(readString())
+                    .itemType(ITEM_TYPES[in.get()])
+                    .value(Varint.readSigned(in))
+                    .weight(Varint.readSigned(in));
+            int flags = in.get();
+            builder.isStackable((flags & FLAG_STACKABLE) != 0);
+            if ((flags & FLAG_HAS_DESCRIPTION) != 0) {
+                int count = Varint.readUnsigned(in);
+                List<Description> descriptions = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    descriptions.add(new Description(readString(), readString(), readString()));
+                }
+                builder.itemDescription(descriptions);
+            }
+            return builder.build();
+        }
+
+        private Weapon readWeapon() {
+            String name = readString();
+            int damage = Varint.readSigned(in);
+            int type = in.get();
+            boolean magical = (in.get() & FLAG_MAGICAL) != 0;
+            return new Weapon(name, damage, type == 0 ? null : WEAPON_TYPES[type - 1], magical);
+        }
+
+        private String readString() {
+            int ref = Varint.readUnsigned(in);
+            if (ref == STRING_NULL) {
+                return null;
+            }
+            if (ref != STRING_LITERAL) {
+                return strings.get(ref - STRING_TABLE_BASE);
+            }
+            int length = Varint.readUnsigned(in);
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            in.get(scratch, 0, length);
+            String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+    }
+
+    private static final class DecodedPlayer implements BuilderData {
+        String name;
+        Integer health;
+        Boolean isAlive;
+        List<Item> items;
+        List<Player> friends;
+        Level level;
+        List<Weapon> weapons;
+
+        @Override
+        public String getName() { return name; }
+        @Override
+        public Integer getHealth() { return health; }
+        @Override
+        public Boolean getIsAlive() { return isAlive; }
+        @Override
+        public List<Item> getItems() { return items; }
+        @Override
+        public List<Player> getFriends() { return friends; }
+        @Override
+        public Level getLevel() { return level; }
+        @Override
+        public List<Weapon> getWeapons() { return weapons; }
+    }
+}
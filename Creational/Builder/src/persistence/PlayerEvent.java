@@ -0,0 +1,128 @@
+package persistence;
+
+import model.*;
+
+/**
+ * One recorded player mutation, as appended to and replayed from a PlayerJournal.
+ * Events are created with the factories below; the journal assigns the sequence number.
+ */
+public final class PlayerEvent {
+
+    public enum Type {
+        HEALTH_CHANGED,
+        ITEM_ADDED,
+        ITEM_REMOVED,
+        FRIEND_ADDED,
+        FRIEND_REMOVED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final int playerId;
+    // Health, item quantity or friend id, depending on the type
+    private final int value;
+    private final boolean alive;
+    private final Item item;
+    private final String itemName;
+
+    PlayerEvent(long sequence, Type type, int playerId, int value, boolean alive, Item item, String itemName) {
+        this.sequence = sequence;
+        this.type = type;
+        this.playerId = playerId;
+        this.value = value;
+        this.alive = alive;
+        this.item = item;
+        this.itemName = itemName;
+    }
+
+    /**
+     * The player's health after a change; replaying only the latest one restores it.
+     */
+    public static PlayerEvent healthChanged(int playerId, int health, boolean alive) {
+        return new PlayerEvent(-1, Type.HEALTH_CHANGED, playerId, health, alive, null, null);
+    }
+
+    public static PlayerEvent itemAdded(int playerId, Item item, int quantity) {
+        if (item == null || quantity <= 0) {
+            throw new IllegalArgumentException("An added item needs an item and a positive quantity");
+        }
+        return new PlayerEvent(-1, Type.ITEM_ADDED, playerId, quantity, false, item, item.getName());
+    }
+
+    public static PlayerEvent itemRemoved(int playerId, String itemName, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Removed quantity must be positive");
+        }
+        return new PlayerEvent(-1, Type.ITEM_REMOVED, playerId, quantity, false, null, itemName);
+    }
+
+    public static PlayerEvent friendAdded(int playerId, int friendId) {
+        return new PlayerEvent(-1, Type.FRIEND_ADDED, playerId, friendId, false, null, null);
+    }
+
+    public static PlayerEvent friendRemoved(int playerId, int friendId) {
+        return new PlayerEvent(-1, Type.FRIEND_REMOVED, playerId, friendId, false, null, null);
+    }
+
+    PlayerEvent withSequence(long sequence) {
+        return new PlayerEvent(sequence, type, playerId, value, alive, item, itemName);
+    }
+
+    /**
+     * Position in the journal, or -1 for an event that has not been appended.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    public int getHealth() {
+        return value;
+    }
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public int getQuantity() {
+        return value;
+    }
+
+    public int getFriendId() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("PlayerEvent{sequence=").append(sequence)
+                .append(", type=").append(type)
+                .append(", playerId=").append(playerId);
+        switch (type) {
+            case HEALTH_CHANGED:
+                out.append(", health=").append(value).append(", alive=").append(alive);
+                break;
+            case ITEM_ADDED:
+            case ITEM_REMOVED:
+                out.append(", itemName='").append(itemName).append("', quantity=").append(value);
+                break;
+            default:
+                out.append(", friendId=").append(value);
+        }
+        return out.append('}').toString();
+    }
+}
@@ -0,0 +1,739 @@
+package persistence;
+
+import builders.BasicPlayerBuilder;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import model.*;
+
+/**
+ * Imports players from JSON Lines files, as written by PlayerTextWriter, on all cores.
+ *
+ * The file is read through a FileChannel in large chunks, each cut at its last line break
+ * (the partial line is carried into the next chunk). Chunks are parsed in parallel, every
+ * record going through a BasicPlayerBuilder that the chunk reuses, while the reading thread
+ * hands finished chunks to the Sink in file order. At most maxChunksInFlight chunks are read
+ * ahead, so memory stays bounded whatever the file size.
+ *
+ * Item, weapon and level names are interned in a registry shared by the workers of one import,
+ * so a name repeated across millions of records is kept once; past MAX_INTERNED_NAMES distinct
+ * names, later ones are kept as read. Items are immutable and are shared
+ * outright when their record text is identical: each import keeps up to MAX_SHARED_ITEMS
+ * items keyed by their record bytes, and a repeated item is found by scanning past its text
+ * and looking the bytes up, before anything is decoded or built. Friends are not resolved, since they may be
+ * defined anywhere in the file: each friend id is reported to the FriendshipSink instead
+ * (e.g. {@code socialGraph::addFriendship}), and imported players have no friend list.
+ *
+ * Imported players keep their ids from the file, since friend ids refer to them. Ids cannot be
+ * remapped while forward references are reported as they are read, so a record whose id is
+ * already in use in this process fails the import instead.
+ */
+public class PlayerImporter {
+
+    /**
+     * Receives the players of one chunk, in file order, on the importing thread.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void accept(List<Player> players) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface FriendshipSink {
+        void accept(int playerId, int friendId);
+    }
+
+    private static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+    // Distinct items shared per import; later distinct items are built per record
+    private static final int MAX_SHARED_ITEMS = 1 << 16;
+    // Distinct names interned per import; later distinct names are kept per record
+    private static final int MAX_INTERNED_NAMES = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final DescriptionStore descriptionStore;
+    private volatile int internedNameCount;
+    private volatile int sharedItemCount;
+
+    public PlayerImporter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, 2 * ForkJoinPool.commonPool().getParallelism(), null);
+    }
+
+    /**
+     * @param descriptionStore where item descriptions are deduplicated, or null to keep them on the items
+     */
+    public PlayerImporter(ForkJoinPool pool, int chunkSize, int maxChunksInFlight, DescriptionStore descriptionStore) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        if (chunkSize <= 0 || maxChunksInFlight <= 0) {
+            throw new IllegalArgumentException("Chunk size and chunks in flight must be positive");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = maxChunksInFlight;
+        this.descriptionStore = descriptionStore;
+    }
+
+    /**
+     * Imports every record of the file; returns the number of players imported.
+     *
+     * @throws IllegalStateException if a record is malformed, fails validation or has an id already in use
+     */
+    public long importFile(Path file, Sink sink, FriendshipSink friendships) throws IOException {
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        ArrayDeque<byte[]> freeBuffers = new ArrayDeque<>();
+        ConcurrentHashMap<ItemKey, Item> items = new ConcurrentHashMap<>();
+        ConcurrentHashMap<String, String> names = new ConcurrentHashMap<>();
+        long imported = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] carry = new byte[0];
+            int carryLength = 0;
+            long offset = 0;
+            boolean eof = false;
+            while (!eof) {
+                if (inFlight.size() == maxChunksInFlight) {
+                    imported += drain(inFlight.poll(), sink, friendships, freeBuffers);
+                }
+                byte[] buffer = freeBuffers.isEmpty() ? new byte[chunkSize] : freeBuffers.poll();
+                if (carryLength >= buffer.length) {
+                    // A line longer than a chunk: grow so the chunk holds it whole
+                    buffer = new byte[carryLength + chunkSize];
+                }
+                System.arraycopy(carry, 0, buffer, 0, carryLength);
+                ByteBuffer target = ByteBuffer.wrap(buffer, carryLength, buffer.length - carryLength);
+                while (target.hasRemaining()) {
+                    if (channel.read(target) < 0) {
+                        eof = true;
+                        break;
+                    }
+                }
+                int length = target.position();
+                int end = eof ? length : lastLineEnd(buffer, carryLength, length);
+                if (end < 0) {
+                    // No line break yet: carry the whole chunk forward
+                    carry = buffer;
+                    carryLength = length;
+                    continue;
+                }
+                carryLength = length - end;
+                if (carry.length < carryLength) {
+                    carry = new byte[Math.max(carryLength, chunkSize)];
+                }
+                System.arraycopy(buffer, end, carry, 0, carryLength);
+                long chunkOffset = offset;
+                byte[] chunk = buffer;
+                inFlight.add(pool.submit(() -> parseChunk(chunk, end, chunkOffset, items, names)));
+                offset += end;
+            }
+            while (!inFlight.isEmpty()) {
+                imported += drain(inFlight.poll(), sink, friendships, freeBuffers);
+            }
+            return imported;
+        } finally {
+            internedNameCount = names.size();
+            sharedItemCount = items.size();
+            for (Future<Chunk> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    public long importFile(Path file, Sink sink) throws IOException {
+        return importFile(file, sink, (playerId, friendId) -> { });
+    }
+
+    /**
+     * Distinct item, weapon and level names interned by the last import.
+     */
+    public int getInternedNameCount() {
+        return internedNameCount;
+    }
+
+    /**
+     * Distinct items shared by the last import.
+     */
+    public int getSharedItemCount() {
+        return sharedItemCount;
+    }
+
+    private long drain(Future<Chunk> future, Sink sink, FriendshipSink friendships, ArrayDeque<byte[]> freeBuffers)
+            throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Import failed", e.getCause());
+        }
+        if (chunk.buffer.length == chunkSize) {
+            freeBuffers.add(chunk.buffer);
+        }
+        sink.accept(chunk.players);
+        int[] edges = chunk.friendships;
+        for (int i = 0; i < chunk.friendshipCount; i += 2) {
+            friendships.accept(edges[i], edges[i + 1]);
+        }
+        return chunk.players.size();
+    }
+
+    // Position just past the last '\n' in buffer[from, to), or -1 if there is none
+    private static int lastLineEnd(byte[] buffer, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private Chunk parseChunk(byte[] buffer, int length, long fileOffset, ConcurrentHashMap<ItemKey, Item> items,
+            ConcurrentHashMap<String, String> names) {
+        Chunk chunk = new Chunk(buffer);
+        RecordParser parser = new RecordParser(buffer, fileOffset, chunk, items, names);
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && buffer[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            parser.parseLine(lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    private static final class Chunk {
+        final byte[] buffer;
+        final List<Player> players = new ArrayList<>();
+        int[] friendships = new int[16];
+        int friendshipCount;
+
+        Chunk(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        void addFriendship(int playerId, int friendId) {
+            if (friendshipCount + 2 > friendships.length) {
+                friendships = Arrays.copyOf(friendships, friendships.length * 2);
+            }
+            friendships[friendshipCount++] = playerId;
+            friendships[friendshipCount++] = friendId;
+        }
+    }
+
+    /**
+     * An item's record bytes. Stored keys own a copy; a parser probes with a reused key over its chunk buffer.
+     */
+    private static final class ItemKey {
+        private byte[] bytes;
+        private int offset;
+        private int length;
+        private int hash;
+
+        ItemKey set(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+            int h = 1;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                h = 31 * h + bytes[i];
+            }
+            this.hash = h;
+            return this;
+        }
+
+        ItemKey copy() {
+            ItemKey copy = new ItemKey();
+            copy.bytes = Arrays.copyOfRange(bytes, offset, offset + length);
+            copy.length = length;
+            copy.hash = hash;
+            return copy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ItemKey)) {
+                return false;
+            }
+            ItemKey other = (ItemKey) o;
+            return hash == other.hash && Arrays.equals(bytes, offset, offset + length,
+                    other.bytes, other.offset, other.offset + other.length);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Reads one chunk's records straight from its bytes; used by a single worker.
+     */
+    private final class RecordParser {
+        private final byte[] in;
+        private final long fileOffset;
+        private final Chunk chunk;
+        private final ConcurrentHashMap<ItemKey, Item> items;
+        private final ConcurrentHashMap<String, String> names;
+        private final ItemKey probe = new ItemKey();
+        private final BasicPlayerBuilder builder = new BasicPlayerBuilder();
+        private final StringBuilder text = new StringBuilder();
+        private int pos;
+        private int end;
+
+        RecordParser(byte[] in, long fileOffset, Chunk chunk, ConcurrentHashMap<ItemKey, Item> items,
+                ConcurrentHashMap<String, String> names) {
+            this.in = in;
+            this.fileOffset = fileOffset;
+            this.chunk = chunk;
+            this.items = items;
+            this.names = names;
+        }
+
+        private String intern(String name) {
+            if (name == null) {
+                return null;
+            }
+            String existing = names.get(name);
+            if (existing != null) {
+                return existing;
+            }
+            if (names.size() >= MAX_INTERNED_NAMES) {
+                return name;
+            }
+            existing = names.putIfAbsent(name, name);
+            return existing != null ? existing : name;
+        }
+
+        void parseLine(int start, int end) {
+            this.pos = start;
+            this.end = end;
+            skipWhitespace();
+            if (pos == end) {
+                return; // blank line
+            }
+            try {
+                chunk.players.add(parsePlayer());
+            } catch (IllegalStateException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IllegalStateException("Invalid player record at byte " + (fileOffset + start) + ": "
+                        + e.getMessage(), e);
+            }
+        }
+
+        private Player parsePlayer() {
+            builder.reset();
+            int id = -1;
+            List<Integer> friendIds = new ArrayList<>();
+            expect('{');
+            if (!tryConsume('}')) {
+                do {
+                    String key = readString();
+                    expect(':');
+                    switch (key) {
+                        case "id":
+                            id = readInt();
+                            break;
+                        case "name":
+                            builder.name(readString());
+                            break;
+                        case "health":
+                            builder.health(readInt());
+                            break;
+                        case "alive":
+                            builder.isAlive(readBoolean());
+                            break;
+                        case "level":
+                            builder.level(readLevel());
+                            break;
+                        case "items":
+                            expect('[');
+                            if (!tryConsume(']')) {
+                                do {
+                                    builder.addItem(readItem());
+                                } while (tryConsume(','));
+                                expect(']');
+                            }
+                            break;
+                        case "weapons":
+                            expect('[');
+                            if (!tryConsume(']')) {
+                                do {
+                                    builder.addWeapon(readWeapon());
+                                } while (tryConsume(','));
+                                expect(']');
+                            }
+                            break;
+                        case "friends":
+                            expect('[');
+                            if (!tryConsume(']')) {
+                                do {
+                                    friendIds.add(readInt());
+                                } while (tryConsume(','));
+                                expect(']');
+                            }
+                            break;
+                        default:
+                            skipValue();
+                    }
+                } while (tryConsume(','));
+                expect('}');
+            }
+            skipWhitespace();
+            if (pos != end) {
+                throw new IllegalStateException("trailing characters");
+            }
+            if (id <= 0) {
+                throw new IllegalStateException("missing or invalid id");
+            }
+            BasicPlayerBuilder.RULES.validate(builder);
+            for (int friendId : friendIds) {
+                chunk.addFriendship(id, friendId);
+            }
+            return new Player(id, builder);
+        }
+
+        private Level readLevel() {
+            if (tryConsumeLiteral("null")) {
+                return null;
+            }
+            String name = null;
+            int code = 0;
+            expect('{');
+            if (!tryConsume('}')) {
+                do {
+                    String key = readString();
+                    expect(':');
+                    if (key.equals("name")) {
+                        name = intern(readString());
+                    } else if (key.equals("code")) {
+                        code = readInt();
+                    } else {
+                        skipValue();
+                    }
+                } while (tryConsume(','));
+                expect('}');
+            }
+            return new Level(name, code);
+        }
+
+        private Item readItem() {
+            skipWhitespace();
+            int start = pos;
+            // Identical record text means an identical item; decode and build it only the first time it is seen
+            skipValue();
+            Item shared = items.get(probe.set(in, start, pos - start));
+            if (shared != null) {
+                return shared;
+            }
+            int itemEnd = pos;
+            pos = start;
+            Item built = parseItem();
+            if (pos != itemEnd) {
+                throw new IllegalStateException("item record ends at an unexpected byte");
+            }
+            if (items.size() >= MAX_SHARED_ITEMS) {
+                return built;
+            }
+            shared = items.putIfAbsent(probe.copy(), built);
+            return shared != null ? shared : built;
+        }
+
+        private Item parseItem() {
+            Item.ItemBuilder item = Item.builder().descriptionStore(descriptionStore);
+            expect('{');
+            if (!tryConsume('}')) {
+                do {
+                    String key = readString();
+                    expect(':');
+                    switch (key) {
+                        case "name":
+                            item.name(intern(readString()));
+                            break;
+                        case "type":
+                            item.itemType(ItemType.valueOf(readString()));
+                            break;
+                        case "value":
+                            item.value(readInt());
+                            break;
+                        case "weight":
+                            item.weight(readInt());
+                            break;
+                        case "stackable":
+                            item.isStackable(readBoolean());
+                            break;
+                        case "descriptions":
+                            item.itemDescription(readDescriptions());
+                            break;
+                        default:
+                            skipValue();
+                    }
+                } while (tryConsume(','));
+                expect('}');
+            }
+            return item.build();
+        }
+
+        private List<Description> readDescriptions() {
+            List<Description> descriptions = new ArrayList<>();
+            expect('[');
+            if (tryConsume(']')) {
+                return descriptions;
+            }
+            do {
+                String title = null;
+                String content = null;
+                String author = null;
+                expect('{');
+                if (!tryConsume('}')) {
+                    do {
+                        String key = readString();
+                        expect(':');
+                        if (key.equals("title")) {
+                            title = readString();
+                        } else if (key.equals("content")) {
+                            content = readString();
+                        } else if (key.equals("author")) {
+                            author = readString();
+                        } else {
+                            skipValue();
+                        }
+                    } while (tryConsume(','));
+                    expect('}');
+                }
+                descriptions.add(new Description(title, content, author));
+            } while (tryConsume(','));
+            expect(']');
+            return descriptions;
+        }
+
+        private Weapon readWeapon() {
+            Weapon weapon = new Weapon();
+            expect('{');
+            if (!tryConsume('}')) {
+                do {
+                    String key = readString();
+                    expect(':');
+                    switch (key) {
+                        case "name":
+                            weapon.setName(intern(readString()));
+                            break;
+                        case "damage":
+                            weapon.setDamage(readInt());
+                            break;
+                        case "type":
+                            String type = readString();
+                            weapon.setWeaponType(type == null ? null : WeaponType.valueOf(type));
+                            break;
+                        case "magical":
+                            weapon.setMagical(readBoolean());
+                            break;
+                        default:
+                            skipValue();
+                    }
+                } while (tryConsume(','));
+                expect('}');
+            }
+            return weapon;
+        }
+
+        private int readInt() {
+            skipWhitespace();
+            boolean negative = pos < end && in[pos] == '-';
+            if (negative) {
+                pos++;
+            }
+            int start = pos;
+            long value = 0;
+            while (pos < end && in[pos] >= '0' && in[pos] <= '9') {
+                value = value * 10 + (in[pos++] - '0');
+                if (value > Integer.MAX_VALUE + 1L) {
+                    throw new IllegalStateException("number out of range");
+                }
+            }
+            if (pos == start) {
+                throw new IllegalStateException("number expected");
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalStateException("number out of range");
+            }
+            return (int) value;
+        }
+
+        private boolean readBoolean() {
+            if (tryConsumeLiteral("true")) {
+                return true;
+            }
+            if (tryConsumeLiteral("false")) {
+                return false;
+            }
+            throw new IllegalStateException("boolean expected");
+        }
+
+        private String readString() {
+            if (tryConsumeLiteral("null")) {
+                return null;
+            }
+            expect('"');
+            int start = pos;
+            while (pos < end && in[pos] != '"' && in[pos] != '\\') {
+                pos++;
+            }
+            if (pos < end && in[pos] == '"') {
+                // No escapes: decode the bytes in one go
+                return new String(in, start, pos++ - start, StandardCharsets.UTF_8);
+            }
+            text.setLength(0);
+            text.append(new String(in, start, pos - start, StandardCharsets.UTF_8));
+            while (true) {
+                if (pos >= end) {
+                    throw new IllegalStateException("unterminated string");
+                }
+                byte b = in[pos];
+                if (b == '"') {
+                    pos++;
+                    return text.toString();
+                }
+                if (b == '\\') {
+                    text.append(readEscape());
+                    continue;
+                }
+                // Bytes between escapes are whole UTF-8 sequences, since escapes are ASCII
+                int segment = pos;
+                while (pos < end && in[pos] != '"' && in[pos] != '\\') {
+                    pos++;
+                }
+                text.append(new String(in, segment, pos - segment, StandardCharsets.UTF_8));
+            }
+        }
+
+        private char readEscape() {
+            pos++;
+            if (pos >= end) {
+                throw new IllegalStateException("unterminated escape");
+            }
+            byte b = in[pos++];
+            switch (b) {
+                case '"':
+                case '\\':
+                case '/':
+                    return (char) b;
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'u':
+                    if (pos + 4 > end) {
+                        throw new IllegalStateException("truncated unicode escape");
+                    }
+                    int code = Integer.parseInt(new String(in, pos, 4, StandardCharsets.US_ASCII), 16);
+                    pos += 4;
+                    return (char) code;
+                default:
+                    throw new IllegalStateException("invalid escape \\" + (char) b);
+            }
+        }
+
+        // Skips a value of a field this importer does not know
+        private void skipValue() {
+            skipWhitespace();
+            if (pos >= end) {
+                throw new IllegalStateException("value expected");
+            }
+            byte b = in[pos];
+            if (b == '"') {
+                skipString();
+            } else if (b == '{' || b == '[') {
+                byte close = b == '{' ? (byte) '}' : (byte) ']';
+                pos++;
+                if (tryConsume((char) close)) {
+                    return;
+                }
+                do {
+                    if (b == '{') {
+                        skipString();
+                        expect(':');
+                    }
+                    skipValue();
+                } while (tryConsume(','));
+                expect((char) close);
+            } else {
+                while (pos < end && in[pos] != ',' && in[pos] != '}' && in[pos] != ']') {
+                    pos++;
+                }
+            }
+        }
+
+        // Moves past a quoted string without decoding it
+        private void skipString() {
+            expect('"');
+            while (pos < end && in[pos] != '"') {
+                pos += in[pos] == '\\' ? 2 : 1;
+            }
+            if (pos >= end) {
+                throw new IllegalStateException("unterminated string");
+            }
+            pos++;
+        }
+
+        private void expect(char c) {
+            if (!tryConsume(c)) {
+                throw new IllegalStateException("'" + c + "' expected at byte " + (fileOffset + pos));
+            }
+        }
+
+        private boolean tryConsume(char c) {
+            skipWhitespace();
+            if (pos < end && in[pos] == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean tryConsumeLiteral(String literal) {
+            skipWhitespace();
+            int length = literal.length();
+            if (pos + length > end) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (in[pos + i] != literal.charAt(i)) {
+                    return false;
+                }
+            }
+            pos += length;
+            return true;
+        }
+
+        private void skipWhitespace() {
+            while (pos < end && (in[pos] == ' ' || in[pos] == '\t' || in[pos] == '\r')) {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,895 @@
+package persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import model.*;
+
+/**
+ * Append-only journal of player mutations in memory-mapped segment files (event sourcing).
+ *
+ * An append encodes one small frame straight into the mapped segment under a short lock, so it
+ * costs microseconds. Durability is group-committed: a flusher thread forces the mapping every
+ * few milliseconds, or as soon as someone waits in awaitDurable(), and one force covers every
+ * frame appended before it. Full segments are forced and sealed, and appends continue in a
+ * segment file the flusher pre-allocated and mapped in the background. If a force fails, the
+ * error is kept and rethrown to every later append() and awaitDurable() caller.
+ *
+ * Frames are [length][crc32][payload]. Replay stops at the first empty or corrupt frame, which
+ * is where a crash cut the newest segment off. parallelReplay() decodes segments in parallel and
+ * applies events partitioned by player id, keeping each player's events in order. compact()
+ * folds the sealed segments into one snapshot segment: the latest health of each player, the
+ * latest state of each friendship, and per player and item name at most one removal and one
+ * addition that replay exactly like the originals (removals stop at zero, as in Inventory).
+ * Removals only carry a name, so when one player added differing items under the same name,
+ * that name's item events are kept as they were.
+ *
+ * Tracked players never see journal failures: once the journal is closed or a force has failed,
+ * their health changes are counted in getDroppedEventCount() instead of thrown into takeDamage,
+ * and close() stops tracking them.
+ *
+ * Item descriptions are not journaled; journaled items are restored without them.
+ */
+public class PlayerJournal implements PlayerListener, Closeable {
+    private static final int MAGIC = 0x504C4A4E; // "PLJN"
+    private static final int VERSION = 1;
+    private static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+    private static final int MIN_SEGMENT_SIZE = 4096;
+    private static final long FLUSH_INTERVAL_MILLIS = 5;
+
+    // Segment header: magic, version, first sequence, first sequence covered (lower for compacted segments)
+    private static final int HEADER_SIZE = 24;
+    private static final int HEADER_FIRST_SEQUENCE = 8;
+    private static final int HEADER_COVERS_FROM = 16;
+    private static final int FRAME_HEADER = 8;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String SPARE_NAME = SEGMENT_PREFIX + "spare" + TEMP_SUFFIX;
+
+    private static final PlayerEvent.Type[] TYPES = PlayerEvent.Type.values();
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+
+    /**
+     * Receives replayed events. With parallelReplay() it is called from several threads at once,
+     * but all events of one player arrive on one thread, in journal order.
+     */
+    @FunctionalInterface
+    public interface EventHandler {
+        void apply(PlayerEvent event);
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<Segment> sealed = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+    private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+    private final Thread flusher;
+    private final Map<Integer, Player> tracked = new ConcurrentHashMap<>();
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    // Guarded by this
+    private Segment current;
+    // Pre-allocated and mapped next segment, without a header until it is used; null while being prepared
+    private Segment spare;
+    private long nextSequence;
+    private long durableSequence;
+    private boolean flushRequested;
+    private boolean closed;
+    private RuntimeException flushFailure;
+
+    private PlayerJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+    }
+
+    public static PlayerJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens (or creates) the journal in a directory, dropping a torn tail left by a crash.
+     */
+    public static PlayerJournal open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + MIN_SEGMENT_SIZE + " bytes");
+        }
+        Files.createDirectories(directory);
+        PlayerJournal journal = new PlayerJournal(directory, segmentSize);
+        synchronized (journal) {
+            journal.recover();
+        }
+        journal.flusher.start();
+        return journal;
+    }
+
+    /**
+     * Journals the player's health changes from now on.
+     */
+    public void track(Player player) {
+        if (tracked.putIfAbsent(player.getId(), player) == null) {
+            player.addListener(this);
+        }
+    }
+
+    public void untrack(Player player) {
+        if (tracked.remove(player.getId(), player)) {
+            player.removeListener(this);
+        }
+    }
+
+    @Override
+    public void onHealthChanged(Player player, int previousHealth) {
+        try {
+            append(PlayerEvent.healthChanged(player.getId(), player.getHealth(), player.getIsAlive()));
+        } catch (IllegalStateException | UncheckedIOException e) {
+            // Closed or failed; append() and awaitDurable() callers see the cause
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    /**
+     * Health changes of tracked players that could not be journaled because the journal was
+     * closed or had failed.
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Appends the event and returns its sequence number. The event is durable once
+     * awaitDurable(sequence) returns, at the latest a few milliseconds later.
+     */
+    public synchronized long append(PlayerEvent event) {
+        ensureOpen();
+        long sequence = nextSequence;
+        MappedByteBuffer map = current.map;
+        map.position(current.end);
+        if (!writeFrame(map, sequence, event, crc)) {
+            roll();
+            map = current.map;
+            map.position(current.end);
+            if (!writeFrame(map, sequence, event, crc)) {
+                throw new IllegalArgumentException("Event does not fit in a journal segment: " + event);
+            }
+        }
+        current.end = map.position();
+        nextSequence++;
+        return sequence;
+    }
+
+    /**
+     * Blocks until every event up to the sequence is on disk. Concurrent callers share one force.
+     */
+    public synchronized void awaitDurable(long sequence) throws InterruptedException {
+        while (durableSequence < sequence) {
+            ensureOpen();
+            flushRequested = true;
+            notifyAll();
+            wait();
+        }
+    }
+
+    /**
+     * Appends the event and waits until it is durable.
+     */
+    public long appendDurable(PlayerEvent event) throws InterruptedException {
+        long sequence = append(event);
+        awaitDurable(sequence);
+        return sequence;
+    }
+
+    public synchronized long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    public synchronized int getSegmentCount() {
+        return sealed.size() + 1;
+    }
+
+    /**
+     * Applies every journaled event in order on the calling thread; returns the number of events.
+     */
+    public long replay(EventHandler handler) throws IOException {
+        compactionLock.readLock().lock();
+        try {
+            long count = 0;
+            for (ByteBuffer segment : segmentViews()) {
+                for (PlayerEvent event : readSegment(segment)) {
+                    handler.apply(event);
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Decodes all segments in parallel, then applies events on one task per partition of player ids.
+     * Returns the number of events.
+     */
+    public long parallelReplay(EventHandler handler) throws IOException {
+        compactionLock.readLock().lock();
+        try {
+            List<ByteBuffer> segments = segmentViews();
+            int partitions = Runtime.getRuntime().availableProcessors();
+            List<List<PlayerEvent>[]> decoded = new ArrayList<>(segments.size());
+            for (int i = 0; i < segments.size(); i++) {
+                decoded.add(null);
+            }
+            IntStream.range(0, segments.size()).parallel().forEach(i -> {
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                List<PlayerEvent>[] byPartition = new List[partitions];
+                for (int p = 0; p < partitions; p++) {
+                    byPartition[p] = new ArrayList<>();
+                }
+                for (PlayerEvent event : readSegment(segments.get(i))) {
+                    byPartition[Math.floorMod(event.getPlayerId(), partitions)].add(event);
+                }
+                decoded.set(i, byPartition);
+            });
+            IntStream.range(0, partitions).parallel().forEach(partition -> {
+                for (List<PlayerEvent>[] segment : decoded) {
+                    for (PlayerEvent event : segment[partition]) {
+                        handler.apply(event);
+                    }
+                }
+            });
+            long count = 0;
+            for (List<PlayerEvent>[] segment : decoded) {
+                for (List<PlayerEvent> events : segment) {
+                    count += events.size();
+                }
+            }
+            return count;
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Seals the current segment and folds all sealed segments into one snapshot segment.
+     * Returns the number of segments folded. Appends continue in a new segment meanwhile.
+     */
+    public int compact() throws IOException {
+        compactionLock.writeLock().lock();
+        try {
+            List<Segment> folded;
+            synchronized (this) {
+                ensureOpen();
+                if (current.end > HEADER_SIZE) {
+                    roll();
+                }
+                folded = new ArrayList<>(sealed);
+            }
+            if (folded.isEmpty() || (folded.size() == 1 && folded.get(0).isCompacted())) {
+                return 0;
+            }
+
+            Segment last = folded.get(folded.size() - 1);
+            Segment compacted = new Segment(last.path, last.firstSequence, folded.get(0).coversFrom);
+            ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+            putHeader(out, compacted);
+            out.position(HEADER_SIZE);
+            CRC32 frameCrc = new CRC32();
+            for (PlayerEvent event : fold(folded)) {
+                while (!writeFrame(out, event.getSequence(), event, frameCrc)) {
+                    ByteBuffer larger = ByteBuffer.allocate(out.capacity() * 2);
+                    out.flip();
+                    out = larger.put(out);
+                }
+            }
+            out.flip();
+
+            // Replace the newest folded segment atomically; open() deletes the others if we crash before that
+            Path temp = directory.resolve(last.path.getFileName() + TEMP_SUFFIX);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, last.path, StandardCopyOption.ATOMIC_MOVE);
+            for (Segment segment : folded) {
+                if (segment != last) {
+                    Files.deleteIfExists(segment.path);
+                }
+            }
+            synchronized (this) {
+                sealed.removeAll(folded);
+                sealed.add(0, compacted);
+            }
+            return folded.size();
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Player player : tracked.values()) {
+            untrack(player);
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+            if (flushFailure == null) {
+                current.map.force();
+                durableSequence = nextSequence - 1;
+            }
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            current.channel.close();
+            if (spare != null) {
+                spare.channel.close();
+                Files.deleteIfExists(spare.path);
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            MappedByteBuffer map;
+            long target;
+            boolean needSpare;
+            synchronized (this) {
+                if (!flushRequested && !closed) {
+                    try {
+                        wait(FLUSH_INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                flushRequested = false;
+                target = nextSequence - 1;
+                map = target == durableSequence ? null : current.map;
+                needSpare = spare == null;
+            }
+            if (map != null) {
+                try {
+                    // Outside the lock, so appends continue while the pages are written
+                    map.force();
+                } catch (RuntimeException e) {
+                    // e.g. UncheckedIOException from a failed write-back
+                    synchronized (this) {
+                        flushFailure = e;
+                        notifyAll();
+                    }
+                    return;
+                }
+                synchronized (this) {
+                    if (target > durableSequence) {
+                        durableSequence = target;
+                    }
+                    notifyAll();
+                }
+            }
+            if (needSpare) {
+                prepareSpare();
+            }
+        }
+    }
+
+    // Maps the next segment ahead of time, so a roll under the append lock only renames it
+    private void prepareSpare() {
+        Segment prepared;
+        try {
+            prepared = new Segment(directory.resolve(SPARE_NAME), 0, 0);
+            prepared.channel = FileChannel.open(prepared.path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            prepared.map = prepared.channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            return; // roll() creates the segment itself; try again on the next round
+        }
+        synchronized (this) {
+            if (!closed) {
+                spare = prepared;
+                return;
+            }
+        }
+        try {
+            prepared.channel.close();
+            Files.deleteIfExists(prepared.path);
+        } catch (IOException e) {
+            // open() deletes a leftover spare
+        }
+    }
+
+    private void ensureOpen() {
+        if (flushFailure != null) {
+            throw new IllegalStateException("Journal flush failed", flushFailure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    // Forces and seals the current segment and starts the next one, in the spare if it is ready; caller holds this.
+    // The force only writes what the flusher has not yet written, a few milliseconds of appends.
+    // The next segment is set up before the current one is retired; if either step fails the
+    // journal is marked failed, so later appends are rejected by ensureOpen() instead of
+    // reaching a half-retired segment.
+    private void roll() {
+        Segment next;
+        try {
+            current.map.force();
+            next = spare != null ? useSpare(nextSequence) : createSegment(nextSequence);
+            current.channel.close();
+        } catch (IOException | RuntimeException e) {
+            flushFailure = e instanceof RuntimeException ? (RuntimeException) e : new UncheckedIOException((IOException) e);
+            notifyAll();
+            throw new IllegalStateException("Journal flush failed", flushFailure);
+        }
+        current.channel = null;
+        current.map = null;
+        sealed.add(current);
+        durableSequence = nextSequence - 1;
+        notifyAll();
+        current = next;
+    }
+
+    private Segment useSpare(long firstSequence) throws IOException {
+        Segment segment = new Segment(directory.resolve(segmentName(firstSequence)), firstSequence, firstSequence);
+        Files.move(spare.path, segment.path, StandardCopyOption.ATOMIC_MOVE);
+        segment.channel = spare.channel;
+        segment.map = spare.map;
+        spare = null;
+        flushRequested = true; // The flusher forces the header and maps the next spare
+        notifyAll();
+        // Until the header is forced, open() takes the file for an unused spare; nothing in it is durable yet
+        putHeader(segment.map, segment);
+        segment.end = HEADER_SIZE;
+        return segment;
+    }
+
+    private Segment createSegment(long firstSequence) throws IOException {
+        Segment segment = new Segment(directory.resolve(segmentName(firstSequence)), firstSequence, firstSequence);
+        segment.channel = FileChannel.open(segment.path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segment.map = segment.channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        putHeader(segment.map, segment);
+        segment.map.force();
+        segment.end = HEADER_SIZE;
+        return segment;
+    }
+
+    private void recover() throws IOException {
+        List<Segment> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.delete(file); // An unfinished compaction
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    Segment segment = readHeader(file);
+                    if (segment != null) {
+                        found.add(segment);
+                    } else {
+                        Files.delete(file); // A spare taken into use just before a crash; nothing in it was durable
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(segment -> segment.firstSequence));
+        // A crash during compaction can leave segments that a compacted segment already covers
+        for (Segment compacted : new ArrayList<>(found)) {
+            if (!compacted.isCompacted() || !found.contains(compacted)) {
+                continue;
+            }
+            for (Iterator<Segment> segments = found.iterator(); segments.hasNext(); ) {
+                Segment segment = segments.next();
+                if (segment != compacted && segment.firstSequence >= compacted.coversFrom
+                        && segment.firstSequence < compacted.firstSequence) {
+                    Files.delete(segment.path);
+                    segments.remove();
+                }
+            }
+        }
+
+        if (found.isEmpty()) {
+            nextSequence = 1;
+            current = createSegment(nextSequence);
+            return;
+        }
+        Segment last = found.remove(found.size() - 1);
+        sealed.addAll(found);
+        FileChannel channel = FileChannel.open(last.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        long[] lastSequence = {last.firstSequence - 1};
+        int end = forEachFrame(map, new CRC32(), payload -> lastSequence[0] = payload.getLong(0));
+
+        if (!last.isCompacted() && map.capacity() == segmentSize) {
+            // Pages reach the disk in no particular order, so a crash can leave a zero page at end
+            // with older frames behind it; clear everything after end so they can never resurface
+            // behind frames appended from here
+            if (hasBytesAfter(map, end)) {
+                for (int i = end; i < map.capacity(); i++) {
+                    map.put(i, (byte) 0);
+                }
+                map.force();
+            }
+            last.channel = channel;
+            last.map = map;
+            last.end = end;
+            current = last;
+            nextSequence = Math.max(lastSequence[0] + 1, last.firstSequence);
+        } else {
+            channel.close();
+            sealed.add(last);
+            nextSequence = Math.max(lastSequence[0] + 1, last.firstSequence + 1);
+            current = createSegment(nextSequence);
+        }
+        durableSequence = nextSequence - 1;
+    }
+
+    private static boolean hasBytesAfter(ByteBuffer map, int end) {
+        int i = end;
+        for (; i + 8 <= map.capacity(); i += 8) {
+            if (map.getLong(i) != 0) {
+                return true;
+            }
+        }
+        for (; i < map.capacity(); i++) {
+            if (map.get(i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<ByteBuffer> segmentViews() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        ByteBuffer currentView;
+        synchronized (this) {
+            ensureOpen();
+            for (Segment segment : sealed) {
+                paths.add(segment.path);
+            }
+            currentView = current.map.slice(0, current.end);
+        }
+        List<ByteBuffer> views = new ArrayList<>(paths.size() + 1);
+        for (Path path : paths) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                views.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+        views.add(currentView);
+        return views;
+    }
+
+    /**
+     * Latest health per player, latest state per friendship, and the folded item changes per
+     * player and item name, in sequence order. Names a player added differing items under are
+     * not folded: a second pass copies their item events unchanged.
+     */
+    private List<PlayerEvent> fold(List<Segment> segments) throws IOException {
+        Map<Integer, PlayerEvent> health = new HashMap<>();
+        Map<Long, PlayerEvent> friendships = new HashMap<>();
+        Map<Integer, Map<String, ItemBalance>> items = new HashMap<>();
+        for (ByteBuffer map : mapAll(segments)) {
+            for (PlayerEvent event : readSegment(map)) {
+                switch (event.getType()) {
+                    case HEALTH_CHANGED:
+                        health.put(event.getPlayerId(), event);
+                        break;
+                    case FRIEND_ADDED:
+                    case FRIEND_REMOVED:
+                        int low = Math.min(event.getPlayerId(), event.getFriendId());
+                        int high = Math.max(event.getPlayerId(), event.getFriendId());
+                        friendships.put((long) low << 32 | (high & 0xFFFFFFFFL), event);
+                        break;
+                    default:
+                        items.computeIfAbsent(event.getPlayerId(), id -> new HashMap<>())
+                                .computeIfAbsent(event.getItemName(), name -> new ItemBalance())
+                                .add(event);
+                }
+            }
+        }
+
+        List<PlayerEvent> snapshot = new ArrayList<>(health.values());
+        snapshot.addAll(friendships.values());
+        Map<Integer, Set<String>> unfolded = new HashMap<>();
+        for (Map.Entry<Integer, Map<String, ItemBalance>> player : items.entrySet()) {
+            for (Map.Entry<String, ItemBalance> entry : player.getValue().entrySet()) {
+                ItemBalance balance = entry.getValue();
+                if (balance.mixed) {
+                    unfolded.computeIfAbsent(player.getKey(), id -> new HashSet<>()).add(entry.getKey());
+                    continue;
+                }
+                // Removal first: both share the last sequence and the sort below is stable
+                long removed = balance.floor - balance.delta;
+                if (removed > 0) {
+                    snapshot.add(PlayerEvent.itemRemoved(player.getKey(), entry.getKey(), clamp(removed))
+                            .withSequence(balance.sequence));
+                }
+                if (balance.floor > 0) {
+                    snapshot.add(PlayerEvent.itemAdded(player.getKey(), balance.item, clamp(balance.floor))
+                            .withSequence(balance.sequence));
+                }
+            }
+        }
+        if (!unfolded.isEmpty()) {
+            for (ByteBuffer map : mapAll(segments)) {
+                for (PlayerEvent event : readSegment(map)) {
+                    if (event.getType() == PlayerEvent.Type.ITEM_ADDED || event.getType() == PlayerEvent.Type.ITEM_REMOVED) {
+                        Set<String> names = unfolded.get(event.getPlayerId());
+                        if (names != null && names.contains(event.getItemName())) {
+                            snapshot.add(event);
+                        }
+                    }
+                }
+            }
+        }
+        snapshot.sort(Comparator.comparingLong(PlayerEvent::getSequence));
+        return snapshot;
+    }
+
+    private static List<ByteBuffer> mapAll(List<Segment> segments) throws IOException {
+        List<ByteBuffer> maps = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                maps.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+        return maps;
+    }
+
+    // Null for a segment whose header was never written
+    private static Segment readHeader(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+        }
+        if (!header.hasRemaining() && header.getInt(0) == 0 && header.getLong(HEADER_FIRST_SEQUENCE) == 0) {
+            return null;
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a journal segment: " + file);
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IllegalStateException("Unsupported journal version: " + header.getInt(4));
+        }
+        return new Segment(file, header.getLong(HEADER_FIRST_SEQUENCE), header.getLong(HEADER_COVERS_FROM));
+    }
+
+    private static void putHeader(ByteBuffer out, Segment segment) {
+        out.putInt(0, MAGIC);
+        out.putInt(4, VERSION);
+        out.putLong(HEADER_FIRST_SEQUENCE, segment.firstSequence);
+        out.putLong(HEADER_COVERS_FROM, segment.coversFrom);
+    }
+
+    private static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    private static List<PlayerEvent> readSegment(ByteBuffer segment) {
+        List<PlayerEvent> events = new ArrayList<>();
+        forEachFrame(segment, new CRC32(), payload -> events.add(decode(payload)));
+        return events;
+    }
+
+    // Visits each intact frame's payload; returns the offset just past the last one
+    private static int forEachFrame(ByteBuffer segment, CRC32 crc, Consumer<ByteBuffer> visitor) {
+        int position = HEADER_SIZE;
+        while (position + FRAME_HEADER <= segment.limit()) {
+            int length = segment.getInt(position);
+            if (length <= 0 || length > segment.limit() - position - FRAME_HEADER) {
+                break;
+            }
+            ByteBuffer payload = segment.slice(position + FRAME_HEADER, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != segment.getInt(position + 4)) {
+                break;
+            }
+            visitor.accept(payload);
+            position += FRAME_HEADER + length;
+        }
+        return position;
+    }
+
+    // Writes one frame at out's position; returns false, with the position unchanged, if it does not fit
+    private static boolean writeFrame(ByteBuffer out, long sequence, PlayerEvent event, CRC32 crc) {
+        int start = out.position();
+        if (out.remaining() <= FRAME_HEADER) {
+            return false;
+        }
+        try {
+            out.position(start + FRAME_HEADER);
+            encode(out, sequence, event);
+        } catch (BufferOverflowException e) {
+            out.position(start);
+            return false;
+        }
+        int length = out.position() - start - FRAME_HEADER;
+        crc.reset();
+        crc.update(out.slice(start + FRAME_HEADER, length));
+        out.putInt(start + 4, (int) crc.getValue());
+        // Length last: a frame is not visible to a scan until it is complete
+        out.putInt(start, length);
+        return true;
+    }
+
+    private static void encode(ByteBuffer out, long sequence, PlayerEvent event) {
+        out.putLong(sequence);
+        out.put((byte) event.getType().ordinal());
+        Varint.writeUnsigned(out, event.getPlayerId());
+        switch (event.getType()) {
+            case HEALTH_CHANGED:
+                Varint.writeSigned(out, event.getHealth());
+                out.put((byte) (event.isAlive() ? 1 : 0));
+                break;
+            case ITEM_ADDED:
+                Item item = event.getItem();
+                Varint.writeUnsigned(out, event.getQuantity());
+                writeString(out, item.getName());
+                out.put((byte) item.getItemType().ordinal());
+                Varint.writeSigned(out, item.getValue());
+                Varint.writeSigned(out, item.getWeight());
+                out.put((byte) (item.isStackable() ? 1 : 0));
+                break;
+            case ITEM_REMOVED:
+                Varint.writeUnsigned(out, event.getQuantity());
+                writeString(out, event.getItemName());
+                break;
+            default:
+                Varint.writeUnsigned(out, event.getFriendId());
+        }
+    }
+
+    private static PlayerEvent decode(ByteBuffer in) {
+        long sequence = in.getLong();
+        PlayerEvent.Type type = TYPES[in.get()];
+        int playerId = Varint.readUnsigned(in);
+        switch (type) {
+            case HEALTH_CHANGED:
+                int health = Varint.readSigned(in);
+                return new PlayerEvent(sequence, type, playerId, health, in.get() != 0, null, null);
+            case ITEM_ADDED:
+                int quantity = Varint.readUnsigned(in);
+                Item item = Item.builder()
+                        .name(readString(in))
+                        .itemType(ITEM_TYPES[in.get()])
+                        .value(Varint.readSigned(in))
+                        .weight(Varint.readSigned(in))
+                        .isStackable(in.get() != 0)
+                        .build();
+                return new PlayerEvent(sequence, type, playerId, quantity, false, item, item.getName());
+            case ITEM_REMOVED:
+                int removed = Varint.readUnsigned(in);
+                return new PlayerEvent(sequence, type, playerId, removed, false, null, readString(in));
+            default:
+                return new PlayerEvent(sequence, type, playerId, Varint.readUnsigned(in), false, null, null);
+        }
+    }
+
+    // Length + 1 then UTF-8 bytes; 0 is null
+    private static void writeString(ByteBuffer out, String value) {
+        if (value == null) {
+            Varint.writeUnsigned(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        Varint.writeUnsigned(out, bytes.length + 1);
+        out.put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = Varint.readUnsigned(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+        final Path path;
+        final long firstSequence;
+        final long coversFrom;
+        // Only set while this is the segment being appended to
+        FileChannel channel;
+        MappedByteBuffer map;
+        int end;
+
+        Segment(Path path, long firstSequence, long coversFrom) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.coversFrom = coversFrom;
+        }
+
+        boolean isCompacted() {
+            return coversFrom < firstSequence;
+        }
+    }
+
+    private static int clamp(long quantity) {
+        return (int) Math.min(quantity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The item events of one player and name, replayed in order, turn a starting quantity q into
+     * max(floor, q + delta), since a removal never goes below zero. That is the same as removing
+     * floor - delta and then adding floor, so two events replace any number of them.
+     */
+    private static final class ItemBalance {
+        Item item;
+        long floor;
+        long delta;
+        long sequence;
+        // Differing items were added under this name, so which one a removal takes depends on the consumer
+        boolean mixed;
+
+        void add(PlayerEvent event) {
+            if (event.getType() == PlayerEvent.Type.ITEM_ADDED) {
+                if (item != null && !sameItem(item, event.getItem())) {
+                    mixed = true;
+                }
+                item = event.getItem();
+                floor += event.getQuantity();
+                delta += event.getQuantity();
+            } else {
+                floor = Math.max(0, floor - event.getQuantity());
+                delta -= event.getQuantity();
+            }
+            sequence = event.getSequence();
+        }
+
+        // Every attribute the journal records for an item
+        private static boolean sameItem(Item a, Item b) {
+            return a.getName().equals(b.getName()) && a.getItemType() == b.getItemType()
+                    && a.getValue() == b.getValue() && a.getWeight() == b.getWeight()
+                    && a.isStackable() == b.isStackable();
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package persistence;
+
+import builders.BuilderData;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import model.*;
+
+/**
+ * Memory-mapped store of fixed-layout player records (id, name, health, alive, level).
+ *
+ * Tracked players are marked dirty when their health changes, and checkpoint() writes only
+ * the dirty records, so a save costs in proportion to what changed. Opening an existing file
+ * maps it and indexes the record ids without parsing anything else.
+ *
+ * Crash consistency: every slot has two copies. A checkpoint writes into the copy that is not
+ * currently committed, stamps it with the new generation and a CRC, forces the mapping, and only
+ * then commits the generation in the header. On open, copies newer than the committed generation
+ * or with a bad CRC are ignored, so a crash mid-checkpoint falls back to the previous checkpoint.
+ *
+ * Inventory, weapons and friends are not fixed-size and are saved with PlayerCodec instead.
+ */
+public class PlayerSnapshotStore implements PlayerListener, Closeable {
+    private static final int MAGIC = 0x504C5353; // "PLSS"
+    // 2: the record CRC covers all 8 bytes of the generation
+    private static final int VERSION = 2;
+
+    // Header layout
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_SLOT_COUNT = 12;
+    private static final int HEADER_GENERATION = 16;
+
+    // Layout of one copy of a record
+    private static final int COPY_SIZE = 96;
+    private static final int RECORD_SIZE = COPY_SIZE * 2;
+    private static final int COPY_GENERATION = 0;
+    private static final int COPY_CRC = 8;
+    private static final int COPY_ID = 12;
+    private static final int COPY_HEALTH = 16;
+    private static final int COPY_LEVEL_CODE = 20;
+    private static final int COPY_FLAGS = 24;
+    private static final int COPY_NAME_LENGTH = 25;
+    private static final int COPY_LEVEL_NAME_LENGTH = 26;
+    private static final int COPY_NAME = 28;
+    private static final int NAME_BYTES = 40;
+    private static final int COPY_LEVEL_NAME = COPY_NAME + NAME_BYTES;
+    private static final int LEVEL_NAME_BYTES = COPY_SIZE - COPY_LEVEL_NAME;
+
+    private static final int FLAG_ALIVE = 1;
+    private static final int FLAG_HAS_LEVEL = 1 << 1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int slotCount;
+    private long generation;
+
+    private final Map<Integer, Integer> slotsById = new ConcurrentHashMap<>();
+    private final Map<Integer, Player> dirty = new ConcurrentHashMap<>();
+    // Players that carry this store as a listener, so close() can detach it
+    private final Map<Integer, Player> tracked = new ConcurrentHashMap<>();
+    private final CRC32 crc = new CRC32();
+
+    private PlayerSnapshotStore(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens (or creates) a store file. Existing records are indexed by id straight from the mapping.
+     */
+    public static PlayerSnapshotStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        PlayerSnapshotStore store = new PlayerSnapshotStore(channel);
+        try {
+            if (channel.size() == 0) {
+                store.initialize();
+            } else {
+                store.load();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void initialize() throws IOException {
+        remap(INITIAL_CAPACITY);
+        map.putInt(HEADER_MAGIC, MAGIC);
+        map.putInt(HEADER_VERSION, VERSION);
+        map.putInt(HEADER_SLOT_COUNT, 0);
+        map.putLong(HEADER_GENERATION, 0);
+        map.force();
+    }
+
+    private void load() throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (map.getInt(HEADER_MAGIC) != MAGIC) {
+            throw new IllegalStateException("Not a player snapshot file");
+        }
+        if (map.getInt(HEADER_VERSION) != VERSION) {
+            throw new IllegalStateException("Unsupported snapshot version: " + map.getInt(HEADER_VERSION));
+        }
+        capacity = map.getInt(HEADER_CAPACITY);
+        slotCount = map.getInt(HEADER_SLOT_COUNT);
+        generation = map.getLong(HEADER_GENERATION);
+        for (int slot = 0; slot < slotCount; slot++) {
+            int copy = currentCopy(slot);
+            if (copy >= 0) {
+                slotsById.put(map.getInt(copy + COPY_ID), slot);
+            }
+        }
+    }
+
+    /**
+     * Starts persisting the player: assigns it a slot (or reuses its saved slot) and marks it dirty.
+     * Tracking a player again only marks it dirty.
+     *
+     * @throws IllegalArgumentException if the player's name or level name does not fit its field
+     */
+    public void track(Player player) {
+        requireFits(player);
+        synchronized (this) {
+            if (!slotsById.containsKey(player.getId())) {
+                slotsById.put(player.getId(), slotCount++);
+            }
+        }
+        if (tracked.putIfAbsent(player.getId(), player) == null) {
+            player.addListener(this);
+        }
+        dirty.put(player.getId(), player);
+    }
+
+    public void untrack(Player player) {
+        if (tracked.remove(player.getId()) != null) {
+            player.removeListener(this);
+        }
+        dirty.remove(player.getId());
+    }
+
+    public void markDirty(Player player) {
+        if (slotsById.containsKey(player.getId())) {
+            dirty.put(player.getId(), player);
+        }
+    }
+
+    @Override
+    public void onHealthChanged(Player player, int previousHealth) {
+        dirty.put(player.getId(), player);
+    }
+
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Writes every dirty record and commits a new generation.
+     * Returns the number of records written.
+     *
+     * @throws IllegalArgumentException if a name no longer fits (e.g. after Level.setName); nothing
+     *         is committed and the written players stay dirty
+     */
+    public synchronized int checkpoint() throws IOException {
+        if (dirty.isEmpty()) {
+            return 0;
+        }
+        if (slotCount > capacity) {
+            remap(Math.max(slotCount, capacity * 2));
+        }
+        long next = generation + 1;
+        List<Player> written = new ArrayList<>();
+        try {
+            for (Integer id : dirty.keySet()) {
+                // Removed before reading state: a change racing with this write re-marks the player
+                Player player = dirty.remove(id);
+                if (player != null) {
+                    written.add(player);
+                    writeRecord(slotsById.get(id), player, next);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Only uncommitted copies were written; keep every player of this round for the next try
+            for (Player player : written) {
+                dirty.putIfAbsent(player.getId(), player);
+            }
+            throw e;
+        }
+        map.force();
+        map.putInt(HEADER_SLOT_COUNT, slotCount);
+        map.putLong(HEADER_GENERATION, next);
+        map.force(0, HEADER_SIZE);
+        generation = next;
+        return written.size();
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int size() {
+        return slotsById.size();
+    }
+
+    public boolean contains(int playerId) {
+        return slotsById.containsKey(playerId);
+    }
+
+    /**
+     * Returns the committed health of a player, read straight from the mapping.
+     */
+    public synchronized int getHealth(int playerId) {
+        return map.getInt(requireCopy(playerId) + COPY_HEALTH);
+    }
+
+    public synchronized boolean isAlive(int playerId) {
+        return (map.get(requireCopy(playerId) + COPY_FLAGS) & FLAG_ALIVE) != 0;
+    }
+
+    /**
+     * Rebuilds a player (without inventory, weapons or friends) from its committed record.
+     * The player gets a fresh id if its saved id is in use in this process (see Player.restore()).
+     */
+    public synchronized Player load(int playerId) {
+        int copy = requireCopy(playerId);
+        int flags = map.get(copy + COPY_FLAGS);
+        RecordData data = new RecordData();
+        data.name = readString(copy + COPY_NAME, map.get(copy + COPY_NAME_LENGTH) & 0xFF);
+        data.health = map.getInt(copy + COPY_HEALTH);
+        data.isAlive = (flags & FLAG_ALIVE) != 0;
+        if ((flags & FLAG_HAS_LEVEL) != 0) {
+            data.level = new Level(readString(copy + COPY_LEVEL_NAME, map.get(copy + COPY_LEVEL_NAME_LENGTH) & 0xFF),
+                    map.getInt(copy + COPY_LEVEL_CODE));
+        }
+        return Player.restore(playerId, data);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Player player : tracked.values()) {
+            player.removeListener(this);
+        }
+        tracked.clear();
+        map.force();
+        channel.close();
+    }
+
+    private int requireCopy(int playerId) {
+        Integer slot = slotsById.get(playerId);
+        int copy = slot == null || slot >= map.getInt(HEADER_SLOT_COUNT) ? -1 : currentCopy(slot);
+        if (copy < 0) {
+            throw new IllegalArgumentException("No committed record for player " + playerId);
+        }
+        return copy;
+    }
+
+    /**
+     * Offset of the newest valid committed copy of the slot, or -1 if neither copy is valid.
+     */
+    private int currentCopy(int slot) {
+        int first = recordOffset(slot);
+        int second = first + COPY_SIZE;
+        boolean firstValid = isCommitted(first);
+        boolean secondValid = isCommitted(second);
+        if (firstValid && secondValid) {
+            return map.getLong(first + COPY_GENERATION) >= map.getLong(second + COPY_GENERATION) ? first : second;
+        }
+        return firstValid ? first : secondValid ? second : -1;
+    }
+
+    private boolean isCommitted(int copy) {
+        long copyGeneration = map.getLong(copy + COPY_GENERATION);
+        return copyGeneration > 0 && copyGeneration <= generation && map.getInt(copy + COPY_CRC) == checksum(copy);
+    }
+
+    private void writeRecord(int slot, Player player, long recordGeneration) {
+        int first = recordOffset(slot);
+        int second = first + COPY_SIZE;
+        // Never overwrite the committed copy, so it survives a torn or uncommitted write
+        int copy = currentCopy(slot) == first ? second : first;
+
+        Level level = player.getLevel();
+        byte[] name = encode(player.getName(), NAME_BYTES, "Player name", player);
+        byte[] levelName = encode(level != null ? level.getName() : null, LEVEL_NAME_BYTES, "Level name", player);
+        int flags = (player.getIsAlive() ? FLAG_ALIVE : 0) | (level != null ? FLAG_HAS_LEVEL : 0);
+        map.putInt(copy + COPY_ID, player.getId());
+        map.putInt(copy + COPY_HEALTH, player.getHealth());
+        map.putInt(copy + COPY_LEVEL_CODE, level != null ? level.getCode() : 0);
+        map.put(copy + COPY_FLAGS, (byte) flags);
+        map.put(copy + COPY_NAME_LENGTH, (byte) name.length);
+        map.put(copy + COPY_NAME, name);
+        map.put(copy + COPY_LEVEL_NAME_LENGTH, (byte) levelName.length);
+        map.put(copy + COPY_LEVEL_NAME, levelName);
+        map.putLong(copy + COPY_GENERATION, recordGeneration);
+        map.putInt(copy + COPY_CRC, checksum(copy));
+    }
+
+    private int checksum(int copy) {
+        crc.reset();
+        crc.update(map.slice(copy + COPY_ID, COPY_SIZE - COPY_ID));
+        // All 8 bytes: the generation decides which copy is committed
+        crc.update(map.slice(copy + COPY_GENERATION, 8));
+        return (int) crc.getValue();
+    }
+
+    private static void requireFits(Player player) {
+        Level level = player.getLevel();
+        encode(player.getName(), NAME_BYTES, "Player name", player);
+        encode(level != null ? level.getName() : null, LEVEL_NAME_BYTES, "Level name", player);
+    }
+
+    /**
+     * UTF-8 bytes of the string (none for null); names are never truncated, since a cut name
+     * would load as a different player.
+     */
+    private static byte[] encode(String value, int maxBytes, String field, Player player) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes) {
+            throw new IllegalArgumentException(field + " of player " + player.getId() + " is " + bytes.length
+                    + " UTF-8 bytes; the snapshot record holds at most " + maxBytes);
+        }
+        return bytes;
+    }
+
+    private String readString(int offset, int length) {
+        byte[] bytes = new byte[length];
+        map.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int recordOffset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private void remap(int newCapacity) throws IOException {
+        if (map != null) {
+            map.force();
+        }
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, recordOffset(newCapacity));
+        map.putInt(HEADER_CAPACITY, newCapacity);
+        capacity = newCapacity;
+    }
+
+    private static final class RecordData implements BuilderData {
+        String name;
+        Integer health;
+        Boolean isAlive;
+        Level level;
+
+        @Override
+        public String getName() { return name; }
+        @Override
+        public Integer getHealth() { return health; }
+        @Override
+        public Boolean getIsAlive() { return isAlive; }
+        @Override
+        public List<Item> getItems() { return Collections.emptyList(); }
+        @Override
+        public List<Player> getFriends() { return Collections.emptyList(); }
+        @Override
+        public Level getLevel() { return level; }
+        @Override
+        public List<Weapon> getWeapons() { return Collections.emptyList(); }
+    }
+}
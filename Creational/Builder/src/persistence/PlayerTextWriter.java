@@ -0,0 +1,230 @@
+package persistence;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import model.*;
+
+/**
+ * Streams players as text straight to an Appendable, without building the nested strings
+ * that the model toString methods create.
+ *
+ * JSON writes one object per line (JSON Lines), so a dump of any size can be consumed
+ * record by record. COMPACT is a single-line human-readable form for logs. Friends are
+ * written as player ids, so friendship graphs never recurse. Numbers are formatted through
+ * one reused scratch buffer.
+ */
+public class PlayerTextWriter implements Flushable {
+
+    public enum Format {
+        JSON, COMPACT
+    }
+
+    private final Appendable out;
+    private final Format format;
+    private final StringBuilder scratch = new StringBuilder(16);
+
+    public PlayerTextWriter(Appendable out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Writes UTF-8 text to the stream through a buffer; call flush() when done.
+     */
+    public static PlayerTextWriter forStream(OutputStream stream, Format format) {
+        return new PlayerTextWriter(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)), format);
+    }
+
+    public void writeAll(Iterable<Player> players) throws IOException {
+        for (Player player : players) {
+            write(player);
+        }
+    }
+
+    /**
+     * Writes one player followed by a line break.
+     */
+    public void write(Player player) throws IOException {
+        if (format == Format.JSON) {
+            writeJson(player);
+        } else {
+            writeCompact(player);
+        }
+        out.append('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+        }
+    }
+
+    private void writeJson(Player player) throws IOException {
+        out.append("{\"id\":");
+        number(player.getId());
+        out.append(",\"name\":");
+        jsonString(player.getName());
+        out.append(",\"health\":");
+        number(player.getHealth());
+        out.append(",\"alive\":").append(player.getIsAlive() ? "true" : "false");
+        Level level = player.getLevel();
+        out.append(",\"level\":");
+        if (level == null) {
+            out.append("null");
+        } else {
+            out.append("{\"name\":");
+            jsonString(level.getName());
+            out.append(",\"code\":");
+            number(level.getCode());
+            out.append('}');
+        }
+
+        out.append(",\"items\":[");
+        List<Item> items = player.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            writeJsonItem(items.get(i));
+        }
+
+        out.append("],\"weapons\":[");
+        List<Weapon> weapons = player.getWeapons();
+        for (int i = 0; i < weapons.size(); i++) {
+            Weapon weapon = weapons.get(i);
+            out.append(i > 0 ? ",{\"name\":" : "{\"name\":");
+            jsonString(weapon.getName());
+            out.append(",\"damage\":");
+            number(weapon.getDamage());
+            out.append(",\"type\":");
+            jsonString(weapon.getWeaponType() != null ? weapon.getWeaponType().name() : null);
+            out.append(",\"magical\":").append(weapon.isMagical() ? "true" : "false").append('}');
+        }
+
+        out.append("],\"friends\":[");
+        friendIds(player.getFriends());
+        out.append("]}");
+    }
+
+    private void writeJsonItem(Item item) throws IOException {
+        out.append("{\"name\":");
+        jsonString(item.getName());
+        out.append(",\"type\":");
+        jsonString(item.getItemType().name());
+        out.append(",\"value\":");
+        number(item.getValue());
+        out.append(",\"weight\":");
+        number(item.getWeight());
+        out.append(",\"stackable\":").append(item.isStackable() ? "true" : "false");
+        List<Description> descriptions = item.getItemDescription().orElse(null);
+        if (descriptions != null) {
+            out.append(",\"descriptions\":[");
+            for (int i = 0; i < descriptions.size(); i++) {
+                Description description = descriptions.get(i);
+                out.append(i > 0 ? ",{\"title\":" : "{\"title\":");
+                jsonString(description.getTitle());
+                out.append(",\"content\":");
+                jsonString(description.getContent());
+                out.append(",\"author\":");
+                jsonString(description.getAuthor());
+                out.append('}');
+            }
+            out.append(']');
+        }
+        out.append('}');
+    }
+
+    private void writeCompact(Player player) throws IOException {
+        out.append("Player#");
+        number(player.getId());
+        out.append(' ').append(player.getName()).append(" hp=");
+        number(player.getHealth());
+        out.append(player.getIsAlive() ? " alive" : " dead");
+        Level level = player.getLevel();
+        if (level != null) {
+            out.append(" level=").append(level.getName()).append(':');
+            number(level.getCode());
+        }
+        out.append(" items=[");
+        List<Item> items = player.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            out.append(i > 0 ? "|" : "").append(item.getName()).append('(').append(item.getItemType().name()).append(',');
+            number(item.getValue());
+            out.append(')');
+        }
+        out.append("] weapons=[");
+        List<Weapon> weapons = player.getWeapons();
+        for (int i = 0; i < weapons.size(); i++) {
+            Weapon weapon = weapons.get(i);
+            out.append(i > 0 ? "|" : "").append(weapon.getName()).append('(');
+            number(weapon.getDamage());
+            out.append(')');
+        }
+        out.append("] friends=[");
+        friendIds(player.getFriends());
+        out.append(']');
+    }
+
+    private void friendIds(List<Player> friends) throws IOException {
+        for (int i = 0; i < friends.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            number(friends.get(i).getId());
+        }
+    }
+
+    private void number(int value) throws IOException {
+        scratch.setLength(0);
+        scratch.append(value);
+        out.append(scratch);
+    }
+
+    private void jsonString(String value) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                out.append(value, start, i);
+                escape(c);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, value.length()).append('"');
+    }
+
+    private void escape(char c) throws IOException {
+        switch (c) {
+            case '"':
+                out.append("\\\"");
+                break;
+            case '\\':
+                out.append("\\\\");
+                break;
+            case '\n':
+                out.append("\\n");
+                break;
+            case '\r':
+                out.append("\\r");
+                break;
+            case '\t':
+                out.append("\\t");
+                break;
+            default:
+                out.append("\\u00");
+                out.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package persistence;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LEB128 variable-length integers on ByteBuffers.
+ * Small non-negative values take one byte; signed values are zigzag-encoded first
+ * so that small negative numbers stay small as well.
+ */
+public final class Varint {
+
+    private Varint() {}
+
+    public static void writeUnsigned(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public static int readUnsigned(ByteBuffer in) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    public static void writeSigned(ByteBuffer out, int value) {
+        writeUnsigned(out, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readSigned(ByteBuffer in) {
+        int raw = readUnsigned(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
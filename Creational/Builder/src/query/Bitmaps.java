@@ -0,0 +1,78 @@
+package query;
+
+/**
+ * Word-level operations on bitmaps stored as long[], one bit per index position.
+ * All operations work on the first {@code words} words and allocate a fresh result.
+ */
+final class Bitmaps {
+
+    private Bitmaps() {}
+
+    static int wordsFor(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    static long[] and(long[] a, long[] b, int words) {
+        long[] result = new long[words];
+        for (int i = 0; i < words; i++) {
+            result[i] = a[i] & b[i];
+        }
+        return result;
+    }
+
+    static long[] or(long[] a, long[] b, int words) {
+        long[] result = new long[words];
+        for (int i = 0; i < words; i++) {
+            result[i] = a[i] | b[i];
+        }
+        return result;
+    }
+
+    static long[] andNot(long[] a, long[] b, int words) {
+        long[] result = new long[words];
+        for (int i = 0; i < words; i++) {
+            result[i] = a[i] & ~b[i];
+        }
+        return result;
+    }
+
+    static int cardinality(long[] bitmap, int words) {
+        int count = 0;
+        for (int i = 0; i < words; i++) {
+            count += Long.bitCount(bitmap[i]);
+        }
+        return count;
+    }
+
+    static boolean isEmpty(long[] bitmap, int words) {
+        for (int i = 0; i < words; i++) {
+            if (bitmap[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Bitmap with the first {@code bits} bits set.
+     */
+    static long[] full(int bits) {
+        int words = wordsFor(bits);
+        long[] bitmap = new long[words];
+        for (int i = 0; i < words; i++) {
+            bitmap[i] = -1L;
+        }
+        if ((bits & 63) != 0) {
+            bitmap[words - 1] = (1L << (bits & 63)) - 1;
+        }
+        return bitmap;
+    }
+
+    static void set(long[] bitmap, int position, boolean value) {
+        if (value) {
+            bitmap[position >>> 6] |= 1L << position;
+        } else {
+            bitmap[position >>> 6] &= ~(1L << position);
+        }
+    }
+}
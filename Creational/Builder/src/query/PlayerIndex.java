@@ -0,0 +1,238 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import model.*;
+
+/**
+ * Bitmap indexes over a player population, answering Query filters without visiting players.
+ *
+ * Every added player gets a dense position. Per attribute there is one bitmap with a bit per
+ * position: alive, one per ItemType owned, one per WeaponType owned, and one per level bucket
+ * (LEVEL_BUCKET_WIDTH level codes each, with the exact codes kept in a column for the range
+ * edges). Alive bits follow takeDamage through PlayerListener, which takes the write lock only
+ * for the hit that kills a player; call refresh() after changing a player's level.
+ */
+public class PlayerIndex implements PlayerListener {
+    public static final int LEVEL_BUCKET_WIDTH = 10;
+    private static final int INITIAL_WORDS = 16;
+    private static final int NO_LEVEL = Integer.MIN_VALUE;
+
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+    private static final WeaponType[] WEAPON_TYPES = WeaponType.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final List<Player> players = new ArrayList<>();
+    private final Map<Integer, Integer> positions = new HashMap<>();
+    private int capacityWords = INITIAL_WORDS;
+    private long[] alive = new long[INITIAL_WORDS];
+    private final long[][] itemTypes = new long[ITEM_TYPES.length][INITIAL_WORDS];
+    private final long[][] weaponTypes = new long[WEAPON_TYPES.length][INITIAL_WORDS];
+    private final Map<Integer, long[]> levelBuckets = new HashMap<>();
+    private int minLevelBucket = Integer.MAX_VALUE;
+    private int maxLevelBucket = Integer.MIN_VALUE;
+    private int[] levelCodes = new int[INITIAL_WORDS * 64];
+
+    public static PlayerIndex of(Collection<Player> players) {
+        PlayerIndex index = new PlayerIndex();
+        for (Player player : players) {
+            index.add(player);
+        }
+        return index;
+    }
+
+    /**
+     * Indexes the player (once per id) and follows its health changes.
+     */
+    public void add(Player player) {
+        lock.writeLock().lock();
+        try {
+            if (positions.containsKey(player.getId())) {
+                return;
+            }
+            int position = players.size();
+            if (position == capacityWords * 64) {
+                grow();
+            }
+            players.add(player);
+            positions.put(player.getId(), position);
+            index(player, position);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        player.addListener(this);
+    }
+
+    /**
+     * Re-reads the player's alive flag and level, e.g. after Level.setCode().
+     */
+    public void refresh(Player player) {
+        lock.writeLock().lock();
+        try {
+            Integer position = positions.get(player.getId());
+            if (position != null) {
+                unindexLevel(position);
+                index(player, position);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onHealthChanged(Player player, int previousHealth) {
+        // takeDamage only changes isAlive when health reaches 0; other hits leave every bitmap as it is
+        if (previousHealth == 0 || player.getHealth() != 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer position = positions.get(player.getId());
+            if (position != null) {
+                Bitmaps.set(alive, position, player.getIsAlive());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The matching players, in the order they were added.
+     */
+    public List<Player> select(Query query) {
+        lock.readLock().lock();
+        try {
+            long[] matches = evaluate(query);
+            List<Player> result = new ArrayList<>(Bitmaps.cardinality(matches, matches.length));
+            for (int w = 0; w < matches.length; w++) {
+                for (long remaining = matches[w]; remaining != 0; remaining &= remaining - 1) {
+                    result.add(players.get((w << 6) + Long.numberOfTrailingZeros(remaining)));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(Query query) {
+        lock.readLock().lock();
+        try {
+            long[] matches = evaluate(query);
+            return Bitmaps.cardinality(matches, matches.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return players.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] evaluate(Query query) {
+        int size = players.size();
+        return query.evaluate(this, Bitmaps.full(size), Bitmaps.wordsFor(size));
+    }
+
+    // Accessors for Query evaluation; called with the read lock held
+
+    long[] aliveBitmap() {
+        return alive;
+    }
+
+    long[] itemTypeBitmap(ItemType itemType) {
+        return itemTypes[itemType.ordinal()];
+    }
+
+    long[] weaponTypeBitmap(WeaponType weaponType) {
+        return weaponTypes[weaponType.ordinal()];
+    }
+
+    long[] levelBucketBitmap(int bucket) {
+        return levelBuckets.get(bucket);
+    }
+
+    int minLevelBucket() {
+        return minLevelBucket;
+    }
+
+    int maxLevelBucket() {
+        return maxLevelBucket;
+    }
+
+    int levelBucketOf(int code) {
+        return Math.floorDiv(code, LEVEL_BUCKET_WIDTH);
+    }
+
+    long levelBucketStart(int bucket) {
+        return (long) bucket * LEVEL_BUCKET_WIDTH;
+    }
+
+    long levelBucketEnd(int bucket) {
+        return (long) bucket * LEVEL_BUCKET_WIDTH + LEVEL_BUCKET_WIDTH - 1;
+    }
+
+    int levelCodeAt(int position) {
+        return levelCodes[position];
+    }
+
+    Player playerAt(int position) {
+        return players.get(position);
+    }
+
+    private void index(Player player, int position) {
+        Bitmaps.set(alive, position, player.getIsAlive());
+        for (Item item : player.getItems()) {
+            if (item.getItemType() != null) {
+                Bitmaps.set(itemTypes[item.getItemType().ordinal()], position, true);
+            }
+        }
+        for (Weapon weapon : player.getWeapons()) {
+            if (weapon.getWeaponType() != null) {
+                Bitmaps.set(weaponTypes[weapon.getWeaponType().ordinal()], position, true);
+            }
+        }
+        if (player.getLevel() == null) {
+            levelCodes[position] = NO_LEVEL;
+        } else {
+            int code = player.getLevel().getCode();
+            int bucket = levelBucketOf(code);
+            levelCodes[position] = code;
+            Bitmaps.set(levelBuckets.computeIfAbsent(bucket, b -> new long[capacityWords]), position, true);
+            minLevelBucket = Math.min(minLevelBucket, bucket);
+            maxLevelBucket = Math.max(maxLevelBucket, bucket);
+        }
+    }
+
+    private void unindexLevel(int position) {
+        if (levelCodes[position] != NO_LEVEL) {
+            Bitmaps.set(levelBuckets.get(levelBucketOf(levelCodes[position])), position, false);
+        }
+    }
+
+    private void grow() {
+        capacityWords *= 2;
+        alive = Arrays.copyOf(alive, capacityWords);
+        for (int i = 0; i < itemTypes.length; i++) {
+            itemTypes[i] = Arrays.copyOf(itemTypes[i], capacityWords);
+        }
+        for (int i = 0; i < weaponTypes.length; i++) {
+            weaponTypes[i] = Arrays.copyOf(weaponTypes[i], capacityWords);
+        }
+        levelBuckets.replaceAll((bucket, bitmap) -> Arrays.copyOf(bitmap, capacityWords));
+        levelCodes = Arrays.copyOf(levelCodes, capacityWords * 64);
+    }
+}
@@ -0,0 +1,298 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import model.*;
+
+/**
+ * A filter over the players of a PlayerIndex, e.g.
+ * {@code Query.and(Query.alive(), Query.hasItemType(ItemType.MAGIC), Query.hasWeaponType(WeaponType.STAFF), Query.levelAbove(20))}.
+ *
+ * Every query evaluates to a bitmap of matching positions. Indexed predicates are answered
+ * from the index's bitmaps with word-wide AND/OR/AND-NOT. Predicates built with where() have
+ * no index and test players one by one, but only on the positions the indexed parts of the
+ * query left over (predicate pushdown), splitting large scans across cores.
+ */
+public abstract class Query {
+    // Candidate positions above which a where() scan runs in parallel
+    private static final int PARALLEL_SCAN_THRESHOLD = 1 << 14;
+    private static final int SCAN_CHUNK_WORDS = 256;
+
+    private static final int INDEXED_COST = 1;
+    private static final int SCAN_COST = 100;
+
+    Query() {}
+
+    /**
+     * Matching positions among the candidates; never sets a bit that is not in candidates.
+     */
+    abstract long[] evaluate(PlayerIndex index, long[] candidates, int words);
+
+    // Relative cost, used to evaluate cheap (indexed) parts of a conjunction first
+    abstract int cost();
+
+    public static Query alive() {
+        return new Indexed("alive", PlayerIndex::aliveBitmap);
+    }
+
+    public static Query hasItemType(ItemType itemType) {
+        return new Indexed("hasItemType(" + itemType + ")", index -> index.itemTypeBitmap(itemType));
+    }
+
+    public static Query hasWeaponType(WeaponType weaponType) {
+        return new Indexed("hasWeaponType(" + weaponType + ")", index -> index.weaponTypeBitmap(weaponType));
+    }
+
+    /**
+     * Players whose level code is in [min, max]; players without a level never match.
+     */
+    public static Query levelBetween(int min, int max) {
+        return new LevelRange(min, max);
+    }
+
+    public static Query levelAtLeast(int min) {
+        return new LevelRange(min, Integer.MAX_VALUE);
+    }
+
+    public static Query levelAbove(int code) {
+        return code == Integer.MAX_VALUE ? new LevelRange(1, 0) : new LevelRange(code + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Any other condition; evaluated by scanning the players that the rest of the query leaves.
+     */
+    public static Query where(Predicate<Player> predicate) {
+        return new Scan(predicate);
+    }
+
+    public static Query and(Query... queries) {
+        return new And(Arrays.asList(queries));
+    }
+
+    public static Query or(Query... queries) {
+        return new Or(Arrays.asList(queries));
+    }
+
+    public static Query not(Query query) {
+        return new Not(query);
+    }
+
+    @FunctionalInterface
+    interface BitmapSource {
+        long[] bitmap(PlayerIndex index);
+    }
+
+    private static final class Indexed extends Query {
+        private final String description;
+        private final BitmapSource source;
+
+        Indexed(String description, BitmapSource source) {
+            this.description = description;
+            this.source = source;
+        }
+
+        @Override
+        long[] evaluate(PlayerIndex index, long[] candidates, int words) {
+            return Bitmaps.and(source.bitmap(index), candidates, words);
+        }
+
+        @Override
+        int cost() {
+            return INDEXED_COST;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    private static final class LevelRange extends Query {
+        private final int min;
+        private final int max;
+
+        LevelRange(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        long[] evaluate(PlayerIndex index, long[] candidates, int words) {
+            long[] result = new long[words];
+            if (min > max) {
+                return result;
+            }
+            // Buckets wholly inside the range are OR-ed in; the boundary buckets are checked per position
+            int firstBucket = Math.max(index.levelBucketOf(min), index.minLevelBucket());
+            int lastBucket = Math.min(index.levelBucketOf(max), index.maxLevelBucket());
+            for (int bucket = firstBucket; bucket <= lastBucket; bucket++) {
+                long[] bitmap = index.levelBucketBitmap(bucket);
+                if (bitmap == null) {
+                    continue;
+                }
+                boolean whole = index.levelBucketStart(bucket) >= min && index.levelBucketEnd(bucket) <= max;
+                for (int w = 0; w < words; w++) {
+                    long bits = bitmap[w] & candidates[w];
+                    if (!whole) {
+                        for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {
+                            int position = (w << 6) + Long.numberOfTrailingZeros(remaining);
+                            int code = index.levelCodeAt(position);
+                            if (code < min || code > max) {
+                                bits &= ~Long.lowestOneBit(remaining);
+                            }
+                        }
+                    }
+                    result[w] |= bits;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        int cost() {
+            return INDEXED_COST;
+        }
+
+        @Override
+        public String toString() {
+            return "levelBetween(" + min + ", " + max + ")";
+        }
+    }
+
+    private static final class Scan extends Query {
+        private final Predicate<Player> predicate;
+
+        Scan(Predicate<Player> predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        long[] evaluate(PlayerIndex index, long[] candidates, int words) {
+            long[] result = new long[words];
+            if (Bitmaps.cardinality(candidates, words) < PARALLEL_SCAN_THRESHOLD) {
+                scan(index, candidates, result, 0, words);
+            } else {
+                // Chunks own disjoint words of the result, so they need no synchronization
+                int chunks = (words + SCAN_CHUNK_WORDS - 1) / SCAN_CHUNK_WORDS;
+                IntStream.range(0, chunks).parallel().forEach(chunk -> scan(index, candidates, result,
+                        chunk * SCAN_CHUNK_WORDS, Math.min(words, (chunk + 1) * SCAN_CHUNK_WORDS)));
+            }
+            return result;
+        }
+
+        private void scan(PlayerIndex index, long[] candidates, long[] result, int fromWord, int toWord) {
+            for (int w = fromWord; w < toWord; w++) {
+                long matched = 0;
+                for (long remaining = candidates[w]; remaining != 0; remaining &= remaining - 1) {
+                    long bit = Long.lowestOneBit(remaining);
+                    if (predicate.test(index.playerAt((w << 6) + Long.numberOfTrailingZeros(bit)))) {
+                        matched |= bit;
+                    }
+                }
+                result[w] = matched;
+            }
+        }
+
+        @Override
+        int cost() {
+            return SCAN_COST;
+        }
+
+        @Override
+        public String toString() {
+            return "where(...)";
+        }
+    }
+
+    private static final class And extends Query {
+        private final List<Query> queries;
+
+        And(List<Query> queries) {
+            this.queries = new ArrayList<>(queries);
+            this.queries.sort(Comparator.comparingInt(Query::cost));
+        }
+
+        @Override
+        long[] evaluate(PlayerIndex index, long[] candidates, int words) {
+            long[] result = candidates;
+            for (Query query : queries) {
+                result = query.evaluate(index, result, words);
+                if (Bitmaps.isEmpty(result, words)) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        int cost() {
+            return queries.isEmpty() ? INDEXED_COST : queries.get(queries.size() - 1).cost();
+        }
+
+        @Override
+        public String toString() {
+            return "and" + queries;
+        }
+    }
+
+    private static final class Or extends Query {
+        private final List<Query> queries;
+
+        Or(List<Query> queries) {
+            this.queries = new ArrayList<>(queries);
+            this.queries.sort(Comparator.comparingInt(Query::cost));
+        }
+
+        @Override
+        long[] evaluate(PlayerIndex index, long[] candidates, int words) {
+            long[] result = new long[words];
+            for (Query query : queries) {
+                // Positions already matched need not be tested again
+                long[] remaining = Bitmaps.andNot(candidates, result, words);
+                result = Bitmaps.or(result, query.evaluate(index, remaining, words), words);
+            }
+            return result;
+        }
+
+        @Override
+        int cost() {
+            int cost = 0;
+            for (Query query : queries) {
+                cost = Math.max(cost, query.cost());
+            }
+            return cost;
+        }
+
+        @Override
+        public String toString() {
+            return "or" + queries;
+        }
+    }
+
+    private static final class Not extends Query {
+        private final Query query;
+
+        Not(Query query) {
+            this.query = query;
+        }
+
+        @Override
+        long[] evaluate(PlayerIndex index, long[] candidates, int words) {
+            return Bitmaps.andNot(candidates, query.evaluate(index, candidates, words), words);
+        }
+
+        @Override
+        int cost() {
+            return query.cost();
+        }
+
+        @Override
+        public String toString() {
+            return "not(" + query + ")";
+        }
+    }
+}
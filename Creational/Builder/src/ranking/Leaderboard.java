@@ -0,0 +1,284 @@
+package ranking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+import model.*;
+
+/**
+ * Incrementally maintained ranking of players by a score (health, level code, ...).
+ *
+ * Players are kept in a ConcurrentSkipListMap keyed by (score, id), highest score first and ties
+ * by id, with a LongAdder per distinct score counting the players that hold it. Updates to
+ * different players run in parallel: each player's re-score is serialized through its entry in a
+ * ConcurrentHashMap, and nothing takes a board-wide lock. rankOf() adds up the counts of the
+ * higher scores and then counts the ties ahead of the player, so it costs O(distinct higher
+ * scores + ties ahead) rather than O(log n); entryAt() walks the counts the same way, and top(k)
+ * reads the first k keys. No query ever sorts the population. Queries are weakly consistent: one
+ * that runs alongside updates may see some of them and not others.
+ *
+ * Health changes arrive through PlayerListener, but only boards whose score depends on health
+ * subscribe (byLevel() does not); call update() after changing anything else that feeds the
+ * score, such as Level.setCode(). An update that leaves the score unchanged touches nothing.
+ *
+ * With a capacity the board keeps only the best N players it has seen, in bounded memory.
+ * Players outside it are not remembered: one that was pushed out re-enters only on its next
+ * update, so after board members lose score the bounded board can miss players who have not
+ * changed since. Use it where scores mostly rise, or where an approximate top N is enough.
+ * Concurrent inserts may briefly take the board past its capacity before the worst are evicted.
+ */
+public class Leaderboard implements PlayerListener {
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final ToIntFunction<Player> scoreFunction;
+    private final int capacity;
+    private final boolean scoredByHealth;
+
+    private final ConcurrentSkipListMap<Key, Player> ranked = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Integer, Key> keys = new ConcurrentHashMap<>();
+    // Players per score, highest score first. Emptied buckets are kept: removing one could lose a
+    // concurrent increment, and there is at most one per distinct score ever seen.
+    private final ConcurrentSkipListMap<Integer, LongAdder> counts = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+    private final AtomicInteger size = new AtomicInteger();
+
+    public Leaderboard(ToIntFunction<Player> scoreFunction, int capacity) {
+        this(scoreFunction, capacity, true);
+    }
+
+    /**
+     * @param scoredByHealth whether the score can change on takeDamage; if not, tracked players get no listener
+     */
+    public Leaderboard(ToIntFunction<Player> scoreFunction, int capacity, boolean scoredByHealth) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.scoreFunction = scoreFunction;
+        this.capacity = capacity;
+        this.scoredByHealth = scoredByHealth;
+    }
+
+    public static Leaderboard byHealth() {
+        return byHealth(UNBOUNDED);
+    }
+
+    public static Leaderboard byHealth(int capacity) {
+        return new Leaderboard(Player::getHealth, capacity);
+    }
+
+    public static Leaderboard byLevel() {
+        return byLevel(UNBOUNDED);
+    }
+
+    public static Leaderboard byLevel(int capacity) {
+        return new Leaderboard(player -> player.getLevel() != null ? player.getLevel().getCode() : 0, capacity, false);
+    }
+
+    /**
+     * Ranks the player and keeps its rank current as its health changes.
+     */
+    public void track(Player player) {
+        if (scoredByHealth) {
+            player.addListener(this);
+        }
+        update(player);
+    }
+
+    public void untrack(Player player) {
+        player.removeListener(this);
+        keys.computeIfPresent(player.getId(), (id, key) -> {
+            remove(key);
+            return null;
+        });
+    }
+
+    @Override
+    public void onHealthChanged(Player player, int previousHealth) {
+        update(player);
+    }
+
+    /**
+     * Re-scores the player and moves it to its new position; O(log n).
+     */
+    public void update(Player player) {
+        int score = scoreFunction.applyAsInt(player);
+        int id = player.getId();
+        Key current = keys.get(id);
+        if (current != null && current.score == score) {
+            return;
+        }
+        keys.compute(id, (playerId, old) -> {
+            if (old != null) {
+                if (old.score == score) {
+                    return old;
+                }
+                remove(old);
+            } else if (size.get() >= capacity) {
+                Map.Entry<Key, Player> last = ranked.lastEntry();
+                if (last != null && !before(score, id, last.getKey().score, last.getKey().id)) {
+                    return null;
+                }
+            }
+            Key key = new Key(score, id);
+            ranked.put(key, player);
+            counts.computeIfAbsent(score, s -> new LongAdder()).increment();
+            size.incrementAndGet();
+            return key;
+        });
+        while (size.get() > capacity) {
+            Map.Entry<Key, Player> last = ranked.lastEntry();
+            if (last == null) {
+                break;
+            }
+            if (remove(last.getKey())) {
+                keys.remove(last.getKey().id, last.getKey());
+            }
+        }
+    }
+
+    /**
+     * The best k players, best first.
+     */
+    public List<Entry> top(int k) {
+        List<Entry> top = new ArrayList<>(Math.min(k, Math.max(size.get(), 0)));
+        Iterator<Map.Entry<Key, Player>> it = ranked.entrySet().iterator();
+        for (int rank = 1; rank <= k && it.hasNext(); rank++) {
+            Map.Entry<Key, Player> entry = it.next();
+            top.add(new Entry(rank, entry.getValue(), entry.getKey().score));
+        }
+        return top;
+    }
+
+    /**
+     * 1-based rank of the player, or -1 if it is not on the board.
+     */
+    public int rankOf(int playerId) {
+        Key key = keys.get(playerId);
+        if (key == null || !ranked.containsKey(key)) {
+            return -1;
+        }
+        long ahead = 0;
+        for (LongAdder count : counts.headMap(key.score).values()) {
+            ahead += count.sum();
+        }
+        ahead += ranked.subMap(new Key(key.score, Integer.MIN_VALUE), key).size();
+        return (int) (ahead + 1);
+    }
+
+    /**
+     * The entry at a 1-based rank, or null if the board is shorter.
+     */
+    public Entry entryAt(int rank) {
+        if (rank < 1) {
+            return null;
+        }
+        long passed = 0;
+        for (Map.Entry<Integer, LongAdder> bucket : counts.entrySet()) {
+            long count = bucket.getValue().sum();
+            if (passed + count < rank) {
+                passed += count;
+                continue;
+            }
+            int score = bucket.getKey();
+            long skip = rank - passed - 1;
+            for (Map.Entry<Key, Player> entry : ranked.subMap(new Key(score, Integer.MIN_VALUE), true,
+                    new Key(score, Integer.MAX_VALUE), true).entrySet()) {
+                if (skip-- == 0) {
+                    return new Entry(rank, entry.getValue(), score);
+                }
+            }
+            return null;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // True if (score, id) ranks before (otherScore, otherId): higher score first, then lower id
+    private static boolean before(int score, int id, int otherScore, int otherId) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    // Only the caller that actually takes the key out adjusts the counts
+    private boolean remove(Key key) {
+        if (ranked.remove(key) == null) {
+            return false;
+        }
+        counts.get(key.score).decrement();
+        size.decrementAndGet();
+        return true;
+    }
+
+    private static final class Key implements Comparable<Key> {
+        final int score;
+        final int id;
+
+        Key(int score, int id) {
+            this.score = score;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            if (score != other.score) {
+                return score > other.score ? -1 : 1;
+            }
+            return Integer.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).score == score && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * score + id;
+        }
+    }
+
+    /**
+     * A player's position on the board at the time of the query.
+     */
+    public static final class Entry {
+        private final int rank;
+        private final Player player;
+        private final int score;
+
+        Entry(int rank, Player player, int score) {
+            this.rank = rank;
+            this.player = player;
+            this.score = score;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public Player getPlayer() {
+            return player;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{rank=" + rank + ", playerId=" + player.getId() + ", name='" + player.getName()
+                    + "', score=" + score + '}';
+        }
+    }
+}
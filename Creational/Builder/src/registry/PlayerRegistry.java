@@ -0,0 +1,446 @@
+package registry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import model.*;
+
+/**
+ * Central registry of live players, looked up by id or by name.
+ *
+ * Both indexes are split into a power-of-two number of shards, each behind its own read-write
+ * lock, and a key picks its shard from the high bits of its mixed hash. Threads working on
+ * different players almost always take different locks, so lookups, registrations and removals
+ * scale with cores instead of queueing on one map. Id shards use an int-keyed open-addressing
+ * table, so lookups by id do not box the key; that table takes its slot from the low bits of the
+ * same hash, which stay spread out within one shard.
+ *
+ * register() and unregister() update the name shard while still holding the id shard's write
+ * lock (always id lock first, then name lock), so a racing register/unregister pair can never
+ * leave a name entry for a player that is not registered by id. A lookup racing with either may
+ * still find a player by id but not yet (or no longer) by name.
+ *
+ * Work can be run shard by shard: forEachParallel() visits the id shards on all cores, and
+ * executeOnShard()/forEachShard() hand each shard's work to a ShardExecutor, which can keep a
+ * shard on one worker (e.g. ThreadPoolManager's shard-affine lanes) so per-shard state stays
+ * on one thread.
+ */
+public class PlayerRegistry {
+
+    /**
+     * Runs a task for a shard; an affine executor runs all tasks for one shard on the same worker, in order.
+     */
+    @FunctionalInterface
+    public interface ShardExecutor {
+        void execute(int shard, Runnable task);
+    }
+
+    private static final ShardExecutor COMMON_POOL = (shard, task) -> ForkJoinPool.commonPool().execute(task);
+
+    private final int mask;
+    private final int shardShift;
+    private final IdShard[] idShards;
+    private final NameShard[] nameShards;
+    private final ShardExecutor shardExecutor;
+
+    public PlayerRegistry() {
+        this(4 * Runtime.getRuntime().availableProcessors(), COMMON_POOL);
+    }
+
+    /**
+     * @param shardCount rounded up to a power of two
+     * @param shardExecutor where executeOnShard() and forEachShard() run their tasks
+     */
+    public PlayerRegistry(int shardCount, ShardExecutor shardExecutor) {
+        if (shardCount <= 0 || shardCount > 1 << 16) {
+            throw new IllegalArgumentException("Shard count must be between 1 and 65536");
+        }
+        if (shardExecutor == null) {
+            throw new IllegalArgumentException("Shard executor cannot be null");
+        }
+        int shards = shardCount == 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1;
+        this.mask = shards - 1;
+        // With one shard the shift is 32, i.e. 0 in Java, and the mask alone picks shard 0
+        this.shardShift = 32 - Integer.numberOfTrailingZeros(shards);
+        this.idShards = new IdShard[shards];
+        this.nameShards = new NameShard[shards];
+        for (int i = 0; i < shards; i++) {
+            idShards[i] = new IdShard();
+            nameShards[i] = new NameShard();
+        }
+        this.shardExecutor = shardExecutor;
+    }
+
+    /**
+     * Adds the player; returns false if a player with its id is already registered.
+     */
+    public boolean register(Player player) {
+        IdShard shard = idShards[shardOf(player.getId())];
+        shard.lock.writeLock().lock();
+        try {
+            if (!shard.players.putIfAbsent(player.getId(), player)) {
+                return false;
+            }
+            if (player.getName() != null) {
+                nameShards[nameShardOf(player.getName())].add(player);
+            }
+            return true;
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    public void registerAll(Iterable<Player> players) {
+        for (Player player : players) {
+            register(player);
+        }
+    }
+
+    /**
+     * Removes and returns the player with the id, or null if none is registered.
+     */
+    public Player unregister(int playerId) {
+        IdShard shard = idShards[shardOf(playerId)];
+        shard.lock.writeLock().lock();
+        try {
+            Player removed = shard.players.remove(playerId);
+            if (removed != null && removed.getName() != null) {
+                nameShards[nameShardOf(removed.getName())].remove(removed);
+            }
+            return removed;
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    public Player get(int playerId) {
+        IdShard shard = idShards[shardOf(playerId)];
+        shard.lock.readLock().lock();
+        try {
+            return shard.players.get(playerId);
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(int playerId) {
+        return get(playerId) != null;
+    }
+
+    /**
+     * All registered players with exactly this name (names need not be unique), as a copy.
+     */
+    public List<Player> findByName(String name) {
+        return nameShards[nameShardOf(name)].find(name);
+    }
+
+    /**
+     * The player with this name, or null; fails if more than one player has it.
+     */
+    public Player getByName(String name) {
+        List<Player> players = findByName(name);
+        if (players.size() > 1) {
+            throw new IllegalStateException("Name '" + name + "' is shared by " + players.size() + " players");
+        }
+        return players.isEmpty() ? null : players.get(0);
+    }
+
+    /**
+     * Number of registered players; under concurrent updates each shard is counted at a slightly different moment.
+     */
+    public int size() {
+        int size = 0;
+        for (IdShard shard : idShards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public int getShardCount() {
+        return idShards.length;
+    }
+
+    /**
+     * The id shard holding the player, i.e. the shard key used by executeOnShard().
+     */
+    public int shardOf(int playerId) {
+        return (mix(playerId) >>> shardShift) & mask;
+    }
+
+    /**
+     * Visits every player of one shard under the shard's read lock.
+     * The action must not register or unregister players of the same shard.
+     */
+    public void forEachInShard(int shard, Consumer<Player> action) {
+        IdShard target = idShards[shard];
+        target.lock.readLock().lock();
+        try {
+            target.players.forEach(action);
+        } finally {
+            target.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits every player, shards in parallel; the action must be thread-safe.
+     */
+    public void forEachParallel(Consumer<Player> action) {
+        IntStream.range(0, idShards.length).parallel().forEach(shard -> forEachInShard(shard, action));
+    }
+
+    /**
+     * Runs the action on the player's shard through the ShardExecutor; does nothing if the
+     * player is no longer registered when the task runs.
+     */
+    public CompletableFuture<Void> executeOnShard(int playerId, Consumer<Player> action) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        shardExecutor.execute(shardOf(playerId), () -> {
+            try {
+                Player player = get(playerId);
+                if (player != null) {
+                    action.accept(player);
+                }
+                done.complete(null);
+            } catch (RuntimeException | Error e) {
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Runs one task per shard through the ShardExecutor, each visiting that shard's players;
+     * completes when every shard is done.
+     */
+    public CompletableFuture<Void> forEachShard(Consumer<Player> action) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(idShards.length);
+        for (int i = 0; i < idShards.length; i++) {
+            int shard = i;
+            shardExecutor.execute(shard, () -> {
+                try {
+                    forEachInShard(shard, action);
+                    if (remaining.decrementAndGet() == 0) {
+                        done.complete(null);
+                    }
+                } catch (RuntimeException | Error e) {
+                    done.completeExceptionally(e);
+                }
+            });
+        }
+        return done;
+    }
+
+    /**
+     * Players per id shard, to check that keys spread evenly.
+     */
+    public int[] getShardSizes() {
+        int[] sizes = new int[idShards.length];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = idShards[i].size();
+        }
+        return sizes;
+    }
+
+    private int nameShardOf(String name) {
+        return (mix(name.hashCode()) >>> shardShift) & mask;
+    }
+
+    // Murmur3 finalizer: spreads sequential ids and similar names over all shards
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class IdShard {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        // Guarded by lock
+        final IntPlayerMap players = new IntPlayerMap();
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return players.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    // Players by int id with linear probing; a null slot is free, and removal shifts later entries back so probes stay unbroken
+    private static final class IntPlayerMap {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int[] keys = new int[INITIAL_CAPACITY];
+        private Player[] values = new Player[INITIAL_CAPACITY];
+        private int size;
+
+        Player get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = mix(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        // Returns false, leaving the map unchanged, if the key is already present
+        boolean putIfAbsent(int key, Player value) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            for (; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return false;
+                }
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            // Keep the load factor at or below 1/2 so probe runs stay short
+            if (++size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            return true;
+        }
+
+        Player remove(int key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            for (; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    Player removed = values[slot];
+                    shiftBack(slot);
+                    size--;
+                    return removed;
+                }
+            }
+            return null;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void forEach(Consumer<Player> action) {
+            for (Player value : values) {
+                if (value != null) {
+                    action.accept(value);
+                }
+            }
+        }
+
+        // Fills the freed slot with a later entry of the same probe run, repeating until the run ends
+        private void shiftBack(int free) {
+            int mask = keys.length - 1;
+            int slot = free;
+            while (true) {
+                slot = (slot + 1) & mask;
+                if (values[slot] == null) {
+                    values[free] = null;
+                    return;
+                }
+                int home = mix(keys[slot]) & mask;
+                // The entry may move back only if its home slot is not inside (free, slot]
+                if (((slot - home) & mask) >= ((slot - free) & mask)) {
+                    keys[free] = keys[slot];
+                    values[free] = values[slot];
+                    free = slot;
+                }
+            }
+        }
+
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            Player[] oldValues = values;
+            keys = new int[capacity];
+            values = new Player[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = mix(oldKeys[i]) & mask;
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    // Players by name; most names belong to one player, so a single player is stored without a list
+    private static final class NameShard {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        // Guarded by lock; values are a Player or a Player[]
+        final Map<String, Object> players = new HashMap<>();
+
+        void add(Player player) {
+            lock.writeLock().lock();
+            try {
+                players.merge(player.getName(), player, (existing, added) -> {
+                    if (existing instanceof Player) {
+                        return new Player[] {(Player) existing, player};
+                    }
+                    Player[] current = (Player[]) existing;
+                    Player[] grown = Arrays.copyOf(current, current.length + 1);
+                    grown[current.length] = player;
+                    return grown;
+                });
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Player player) {
+            lock.writeLock().lock();
+            try {
+                players.computeIfPresent(player.getName(), (name, existing) -> {
+                    if (existing instanceof Player) {
+                        return existing == player ? null : existing;
+                    }
+                    Player[] current = (Player[]) existing;
+                    List<Player> kept = new ArrayList<>(current.length);
+                    for (Player candidate : current) {
+                        if (candidate != player) {
+                            kept.add(candidate);
+                        }
+                    }
+                    return kept.size() == 1 ? kept.get(0) : kept.toArray(new Player[0]);
+                });
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<Player> find(String name) {
+            lock.readLock().lock();
+            try {
+                Object found = players.get(name);
+                if (found == null) {
+                    return Collections.emptyList();
+                }
+                if (found instanceof Player) {
+                    List<Player> single = new ArrayList<>(1);
+                    single.add((Player) found);
+                    return single;
+                }
+                return new ArrayList<>(Arrays.asList((Player[]) found));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package simulation;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import model.*;
+
+/**
+ * Balance simulation over packed weapon stats.
+ *
+ * pack() copies what combat needs from each Player (best weapon damage, magical bonus, attack
+ * speed of the weapon type, health) into parallel primitive arrays. The per-player loops below
+ * are plain counted loops over those arrays with no object access, which the JIT can unroll
+ * and auto-vectorize. Duels run pair by pair with an RNG derived only from the seed and the
+ * pair index, so results are identical whether they run sequentially or in parallel.
+ */
+public class CombatSimulator {
+    static final float MAGICAL_BONUS = 1.25f;
+    static final int UNARMED_DAMAGE = 1;
+    private static final float VARIANCE_BASE = 0.85f;
+    private static final float VARIANCE_RANGE = 0.3f;
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    // Attacks per second, indexed by WeaponType ordinal
+    private static final float[] ATTACK_SPEED = new float[WeaponType.values().length];
+
+    static {
+        ATTACK_SPEED[WeaponType.SWORD.ordinal()] = 1.0f;
+        ATTACK_SPEED[WeaponType.AXE.ordinal()] = 0.8f;
+        ATTACK_SPEED[WeaponType.BOW.ordinal()] = 1.2f;
+        ATTACK_SPEED[WeaponType.STAFF.ordinal()] = 0.9f;
+        ATTACK_SPEED[WeaponType.DAGGER.ordinal()] = 1.6f;
+        ATTACK_SPEED[WeaponType.MACE.ordinal()] = 0.85f;
+        ATTACK_SPEED[WeaponType.CROSSBOW.ordinal()] = 0.7f;
+        ATTACK_SPEED[WeaponType.WAND.ordinal()] = 1.3f;
+    }
+
+    private final int size;
+    private final float[] damage;
+    private final float[] attackSpeed;
+    private final int[] health;
+
+    private CombatSimulator(int size) {
+        this.size = size;
+        this.damage = new float[size];
+        this.attackSpeed = new float[size];
+        this.health = new int[size];
+    }
+
+    /**
+     * Packs each player's strongest weapon (highest damage after the magical bonus) and current health. Index i in every result refers to players.get(i).
+     */
+    public static CombatSimulator pack(List<Player> players) {
+        CombatSimulator simulator = new CombatSimulator(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            Weapon best = null;
+            float bestDamage = 0;
+            for (Weapon weapon : player.getWeapons()) {
+                float effective = effectiveDamage(weapon);
+                if (best == null || effective > bestDamage) {
+                    best = weapon;
+                    bestDamage = effective;
+                }
+            }
+            if (best == null) {
+                simulator.damage[i] = UNARMED_DAMAGE;
+                simulator.attackSpeed[i] = 1.0f;
+            } else {
+                simulator.damage[i] = bestDamage;
+                simulator.attackSpeed[i] = best.getWeaponType() != null ? ATTACK_SPEED[best.getWeaponType().ordinal()] : 1.0f;
+            }
+            simulator.health[i] = player.getHealth();
+        }
+        return simulator;
+    }
+
+    // Damage per hit, with the magical bonus applied; this is also what "strongest" compares
+    private static float effectiveDamage(Weapon weapon) {
+        return weapon.getDamage() * (weapon.isMagical() ? MAGICAL_BONUS : 1.0f);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Expected damage per second of every player.
+     */
+    public float[] damagePerSecond() {
+        float[] dps = new float[size];
+        forRange(size, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                dps[i] = damage[i] * attackSpeed[i];
+            }
+        });
+        return dps;
+    }
+
+    /**
+     * Rounds attackers[k] needs to kill defenders[k] with average damage rolls.
+     */
+    public int[] killRounds(int[] attackers, int[] defenders) {
+        if (attackers.length != defenders.length) {
+            throw new IllegalArgumentException("Attackers and defenders must pair up");
+        }
+        int[] rounds = new int[attackers.length];
+        forRange(attackers.length, (from, to) -> {
+            for (int k = from; k < to; k++) {
+                rounds[k] = (int) Math.ceil(health[defenders[k]] / damage[attackers[k]]);
+            }
+        });
+        return rounds;
+    }
+
+    /**
+     * Pairs players (0 vs 1, 2 vs 3, ...) and fights each pair to the death or maxRounds.
+     * Both hit once per round; each hit is scaled by a seeded roll in [0.85, 1.15).
+     */
+    public DuelResult simulateDuels(long seed, int maxRounds) {
+        int pairs = size / 2;
+        int[] winners = new int[pairs];
+        int[] rounds = new int[pairs];
+        forRange(pairs, (from, to) -> {
+            for (int pair = from; pair < to; pair++) {
+                duel(seed, pair, maxRounds, winners, rounds);
+            }
+        });
+        return new DuelResult(winners, rounds);
+    }
+
+    private void duel(long seed, int pair, int maxRounds, int[] winners, int[] rounds) {
+        SplittableRandom random = new SplittableRandom(seed ^ (pair * 0x9E3779B97F4A7C15L));
+        int a = pair * 2;
+        int b = a + 1;
+        float healthA = health[a];
+        float healthB = health[b];
+        int round = 0;
+        while (healthA > 0 && healthB > 0 && round < maxRounds) {
+            healthB -= damage[a] * (VARIANCE_BASE + VARIANCE_RANGE * (float) random.nextDouble());
+            healthA -= damage[b] * (VARIANCE_BASE + VARIANCE_RANGE * (float) random.nextDouble());
+            round++;
+        }
+        rounds[pair] = round;
+        if (healthA > 0 && healthB <= 0) {
+            winners[pair] = a;
+        } else if (healthB > 0 && healthA <= 0) {
+            winners[pair] = b;
+        } else {
+            winners[pair] = -1;
+        }
+    }
+
+    // Runs small inputs inline; splits large ones into contiguous chunks on the common pool
+    private static void forRange(int length, RangeTask task) {
+        if (length < PARALLEL_THRESHOLD) {
+            task.run(0, length);
+            return;
+        }
+        int chunks = Math.max(1, Runtime.getRuntime().availableProcessors() * 4);
+        int chunkSize = (length + chunks - 1) / chunks;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * chunkSize;
+            task.run(from, Math.min(length, from + chunkSize));
+        });
+    }
+
+    @FunctionalInterface
+    private interface RangeTask {
+        void run(int from, int to);
+    }
+
+    /**
+     * Outcome of simulateDuels: for pair k, the winning player index (-1 for a draw or timeout)
+     * and the number of rounds fought.
+     */
+    public static final class DuelResult {
+        private final int[] winners;
+        private final int[] rounds;
+
+        DuelResult(int[] winners, int[] rounds) {
+            this.winners = winners;
+            this.rounds = rounds;
+        }
+
+        public int[] getWinners() {
+            return winners;
+        }
+
+        public int[] getRounds() {
+            return rounds;
+        }
+
+        public double getAverageRounds() {
+            long total = 0;
+            for (int round : rounds) {
+                total += round;
+            }
+            return rounds.length == 0 ? 0 : (double) total / rounds.length;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package social;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import model.Player;
+
+/**
+ * Friendship graph keyed by int player ids (see Player.getId()).
+ *
+ * Edges live in a compressed adjacency (CSR) layout: one offsets array indexed by id and one
+ * array of neighbour ids, so a friendship costs two ints instead of references that pin whole
+ * Player graphs in memory. Edge additions and removals go to a small overlay, which is folded
+ * into the compressed arrays once it grows past a fraction of the base.
+ *
+ * Friendships are mutual, which the immutable Player.getFriends() lists cannot express.
+ * Queries run under a read lock and may proceed concurrently; updates take the write lock.
+ */
+public class SocialGraph {
+    private static final int[] NO_IDS = new int[0];
+    private static final int COMPACT_DIVISOR = 8;
+
+    // Compressed base: neighbours of id are targets[offsets[id] .. offsets[id + 1])
+    private int[] offsets = new int[1];
+    private int[] targets = NO_IDS;
+
+    // Overlay of changes since the last compaction
+    private final Map<Integer, IntList> added = new HashMap<>();
+    private final Set<Long> removed = new HashSet<>();
+    private int overlaySize;
+    private int edgeCount;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Builds a graph from the friends lists of the given players; each listed friend becomes a mutual edge.
+     */
+    public static SocialGraph fromPlayers(Collection<Player> players) {
+        SocialGraph graph = new SocialGraph();
+        for (Player player : players) {
+            for (Player friend : player.getFriends()) {
+                graph.addFriendship(player.getId(), friend.getId());
+            }
+        }
+        graph.compact();
+        return graph;
+    }
+
+    /**
+     * Adds a mutual friendship; returns false if it already existed.
+     */
+    public boolean addFriendship(int a, int b) {
+        checkIds(a, b);
+        lock.writeLock().lock();
+        try {
+            if (areFriendsUnlocked(a, b)) {
+                return false;
+            }
+            addDirected(a, b);
+            addDirected(b, a);
+            edgeCount++;
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a mutual friendship; returns false if it did not exist.
+     */
+    public boolean removeFriendship(int a, int b) {
+        checkIds(a, b);
+        lock.writeLock().lock();
+        try {
+            if (!areFriendsUnlocked(a, b)) {
+                return false;
+            }
+            removeDirected(a, b);
+            removeDirected(b, a);
+            edgeCount--;
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean areFriends(int a, int b) {
+        lock.readLock().lock();
+        try {
+            return areFriendsUnlocked(a, b);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] friendsOf(int id) {
+        lock.readLock().lock();
+        try {
+            IntList result = new IntList();
+            forEachFriend(id, result::add);
+            return result.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every player within k hops of the source, excluding the source itself.
+     */
+    public int[] withinHops(int source, int k) {
+        lock.readLock().lock();
+        try {
+            BitSet visited = new BitSet();
+            visited.set(source);
+            IntList result = new IntList();
+            IntList frontier = new IntList();
+            frontier.add(source);
+            for (int depth = 0; depth < k && frontier.size() > 0; depth++) {
+                IntList next = new IntList();
+                for (int i = 0; i < frontier.size(); i++) {
+                    forEachFriend(frontier.get(i), friend -> {
+                        if (!visited.get(friend)) {
+                            visited.set(friend);
+                            next.add(friend);
+                        }
+                    });
+                }
+                result.addAll(next);
+                frontier = next;
+            }
+            return result.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Friends of friends who are not already friends.
+     */
+    public int[] friendsOfFriends(int id) {
+        lock.readLock().lock();
+        try {
+            BitSet excluded = new BitSet();
+            excluded.set(id);
+            forEachFriend(id, excluded::set);
+            BitSet found = new BitSet();
+            forEachFriend(id, friend -> forEachFriend(friend, candidate -> {
+                if (!excluded.get(candidate)) {
+                    found.set(candidate);
+                }
+            }));
+            return found.stream().toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Suggests up to limit party members: friends of friends ranked by number of mutual friends.
+     */
+    public int[] suggestParty(int id, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet excluded = new BitSet();
+            excluded.set(id);
+            forEachFriend(id, excluded::set);
+            Map<Integer, Integer> mutualCounts = new HashMap<>();
+            forEachFriend(id, friend -> forEachFriend(friend, candidate -> {
+                if (!excluded.get(candidate)) {
+                    mutualCounts.merge(candidate, 1, Integer::sum);
+                }
+            }));
+            return mutualCounts.entrySet().stream()
+                    .sorted((x, y) -> y.getValue().equals(x.getValue())
+                            ? Integer.compare(x.getKey(), y.getKey())
+                            : Integer.compare(y.getValue(), x.getValue()))
+                    .limit(limit)
+                    .mapToInt(Map.Entry::getKey)
+                    .toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Same result as withinHops, but each BFS level is expanded in parallel on the common ForkJoinPool.
+     * Worth it for large frontiers (millions of players); small queries should use withinHops.
+     */
+    public int[] parallelWithinHops(int source, int k) {
+        lock.readLock().lock();
+        try {
+            int idBound = Math.max(Math.max(offsets.length, maxOverlayId() + 2), source + 1);
+            AtomicLongArray visited = new AtomicLongArray((idBound >> 6) + 1);
+            markVisited(visited, source);
+            IntList result = new IntList();
+            int[] frontier = {source};
+            for (int depth = 0; depth < k && frontier.length > 0; depth++) {
+                frontier = IntStream.of(frontier)
+                        .parallel()
+                        .flatMap(id -> IntStream.of(friendsOfUnlocked(id)))
+                        .filter(friend -> markVisited(visited, friend))
+                        .toArray();
+                result.addAll(frontier);
+            }
+            return result.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of friendships (each mutual friendship counts once).
+     */
+    public int getEdgeCount() {
+        lock.readLock().lock();
+        try {
+            return edgeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Folds the overlay into the compressed arrays.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            compactUnlocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactUnlocked() {
+        int vertexCount = Math.max(offsets.length - 1, maxOverlayId() + 1);
+        int[] newOffsets = new int[vertexCount + 1];
+        IntList newTargets = new IntList(edgeCount * 2);
+        for (int id = 0; id < vertexCount; id++) {
+            newOffsets[id] = newTargets.size();
+            forEachFriend(id, newTargets::add);
+        }
+        newOffsets[vertexCount] = newTargets.size();
+        int[] sortedTargets = newTargets.toArray();
+        for (int id = 0; id < vertexCount; id++) {
+            // Sorted ranges let areFriends binary-search the compressed adjacency
+            Arrays.sort(sortedTargets, newOffsets[id], newOffsets[id + 1]);
+        }
+        offsets = newOffsets;
+        targets = sortedTargets;
+        added.clear();
+        removed.clear();
+        overlaySize = 0;
+    }
+
+    private void compactIfNeeded() {
+        if (overlaySize > Math.max(1024, targets.length / COMPACT_DIVISOR)) {
+            compactUnlocked();
+        }
+    }
+
+    private void forEachFriend(int id, IntConsumer action) {
+        if (id >= 0 && id < offsets.length - 1) {
+            boolean checkRemoved = !removed.isEmpty();
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                int friend = targets[i];
+                if (!checkRemoved || !removed.contains(edgeKey(id, friend))) {
+                    action.accept(friend);
+                }
+            }
+        }
+        IntList extra = added.get(id);
+        if (extra != null) {
+            for (int i = 0; i < extra.size(); i++) {
+                action.accept(extra.get(i));
+            }
+        }
+    }
+
+    private int[] friendsOfUnlocked(int id) {
+        IntList result = new IntList();
+        forEachFriend(id, result::add);
+        return result.toArray();
+    }
+
+    private boolean areFriendsUnlocked(int a, int b) {
+        if (a >= 0 && a < offsets.length - 1) {
+            int index = Arrays.binarySearch(targets, offsets[a], offsets[a + 1], b);
+            if (index >= 0) {
+                return !removed.contains(edgeKey(a, b));
+            }
+        }
+        IntList extra = added.get(a);
+        return extra != null && extra.indexOf(b) >= 0;
+    }
+
+    private void addDirected(int from, int to) {
+        if (!removed.remove(edgeKey(from, to))) {
+            added.computeIfAbsent(from, id -> new IntList()).add(to);
+        }
+        overlaySize++;
+    }
+
+    private void removeDirected(int from, int to) {
+        IntList extra = added.get(from);
+        int index = extra == null ? -1 : extra.indexOf(to);
+        if (index >= 0) {
+            extra.removeAt(index);
+            if (extra.size() == 0) {
+                added.remove(from);
+            }
+        } else {
+            removed.add(edgeKey(from, to));
+        }
+        overlaySize++;
+    }
+
+    private int maxOverlayId() {
+        int max = -1;
+        for (int id : added.keySet()) {
+            max = Math.max(max, id);
+        }
+        return max;
+    }
+
+    private static boolean markVisited(AtomicLongArray visited, int id) {
+        int word = id >>> 6;
+        long bit = 1L << id;
+        while (true) {
+            long current = visited.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (visited.compareAndSet(word, current, current | bit)) {
+                return true;
+            }
+        }
+    }
+
+    private static long edgeKey(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    private static void checkIds(int a, int b) {
+        if (a < 0 || b < 0) {
+            throw new IllegalArgumentException("Player ids must be non-negative");
+        }
+        if (a == b) {
+            throw new IllegalArgumentException("A player cannot befriend themselves");
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntConsumer {
+        void accept(int value);
+    }
+
+    /**
+     * Minimal growable int array, so adjacency lists never box.
+     */
+    private static final class IntList {
+        private int[] values;
+        private int size;
+
+        IntList() {
+            this(4);
+        }
+
+        IntList(int capacity) {
+            this.values = new int[Math.max(capacity, 1)];
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(IntList other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        void addAll(int[] other) {
+            for (int value : other) {
+                add(value);
+            }
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int indexOf(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void removeAt(int index) {
+            values[index] = values[--size];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
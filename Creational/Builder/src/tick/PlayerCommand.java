@@ -0,0 +1,40 @@
+package tick;
+
+import model.*;
+
+/**
+ * A queued change to one player, applied by the tick engine on the player's shard worker.
+ * Commands for a player are applied in submission order, also across ticks and shard moves.
+ */
+public interface PlayerCommand {
+    int getPlayerId();
+
+    void apply(Player player, Inventory inventory);
+
+    static PlayerCommand damage(int playerId, int amount) {
+        return new PlayerCommand() {
+            @Override
+            public int getPlayerId() { return playerId; }
+            @Override
+            public void apply(Player player, Inventory inventory) { player.takeDamage(amount); }
+        };
+    }
+
+    static PlayerCommand addItem(int playerId, Item item, int quantity) {
+        return new PlayerCommand() {
+            @Override
+            public int getPlayerId() { return playerId; }
+            @Override
+            public void apply(Player player, Inventory inventory) { inventory.add(item, quantity); }
+        };
+    }
+
+    static PlayerCommand removeItem(int playerId, String itemName, int quantity) {
+        return new PlayerCommand() {
+            @Override
+            public int getPlayerId() { return playerId; }
+            @Override
+            public void apply(Player player, Inventory inventory) { inventory.removeQuantity(itemName, quantity); }
+        };
+    }
+}
@@ -0,0 +1,424 @@
+package tick;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import model.*;
+
+/**
+ * Fixed-rate game loop over sharded players.
+ *
+ * Players are split into shards and every shard is owned by exactly one worker during a tick,
+ * so commands and updates run without locks on the players. A tick drains each shard's queued
+ * commands in one batch, runs the per-player updater, and waits for all shards (the tick
+ * barrier) before the next tick may start. Joins, leaves and rebalancing happen between ticks,
+ * in the order they were requested. At the end of its tick every shard publishes a snapshot of
+ * each player its commands touched; with an updater, which may change anyone, every player's
+ * snapshot is republished if its state changed.
+ *
+ * Every player has its own command queue, which moves with the player when shards are
+ * rebalanced, so a player's commands are applied in submission order across ticks and moves.
+ */
+public class TickEngine implements AutoCloseable {
+
+    /**
+     * Per-player work done once per tick, after the player's commands were applied.
+     */
+    @FunctionalInterface
+    public interface PlayerUpdater {
+        void update(Player player, Inventory inventory, long tick);
+    }
+
+    private static final double REBALANCE_THRESHOLD = 1.5;
+    private static final int MIN_REBALANCE_SIZE = 64;
+    private static final int MAX_COMMANDS_PER_SHARD = 1 << 16;
+
+    private final Shard[] shards;
+    private final ExecutorService workers;
+    private final boolean ownsWorkers;
+    private final ScheduledExecutorService clock;
+    private final long periodNanos;
+    private final PlayerUpdater updater;
+
+    private final Map<Integer, Shard> shardByPlayer = new ConcurrentHashMap<>();
+    // Command queue of every joined player
+    private final Map<Integer, Queue<PlayerCommand>> commandsByPlayer = new ConcurrentHashMap<>();
+    // Joins and leaves in the order they were requested
+    private final Queue<MembershipChange> membershipChanges = new ConcurrentLinkedQueue<>();
+    // Commands for players that have not joined yet, by player; guarded by itself
+    private final Map<Integer, Queue<PlayerCommand>> unrouted = new HashMap<>();
+
+    private volatile long tickCount;
+    private volatile long lastTickNanos;
+    private volatile long maxTickNanos;
+    private volatile long overrunCount;
+    private volatile long rebalanceCount;
+    private volatile double lastImbalance = 1.0;
+
+    public TickEngine(int shardCount, long period, TimeUnit unit, PlayerUpdater updater) {
+        this(shardCount, period, unit, updater, Executors.newFixedThreadPool(shardCount), true);
+    }
+
+    /**
+     * Runs shards on the given executor, which should have at least shardCount threads.
+     */
+    public TickEngine(int shardCount, long period, TimeUnit unit, PlayerUpdater updater, ExecutorService workers) {
+        this(shardCount, period, unit, updater, workers, false);
+    }
+
+    private TickEngine(int shardCount, long period, TimeUnit unit, PlayerUpdater updater,
+                       ExecutorService workers, boolean ownsWorkers) {
+        if (shardCount <= 0 || period <= 0) {
+            throw new IllegalArgumentException("Shard count and period must be positive");
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        this.periodNanos = unit.toNanos(period);
+        this.updater = updater;
+        this.workers = workers;
+        this.ownsWorkers = ownsWorkers;
+        this.clock = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tick-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds the player at the next tick boundary, with an inventory seeded from its items.
+     */
+    public void addPlayer(Player player) {
+        addPlayer(player, Inventory.of(player));
+    }
+
+    public void addPlayer(Player player, Inventory inventory) {
+        membershipChanges.add(new MembershipChange(player.getId(), player, inventory));
+    }
+
+    /**
+     * Removes the player at the next tick boundary.
+     */
+    public void removePlayer(int playerId) {
+        membershipChanges.add(new MembershipChange(playerId, null, null));
+    }
+
+    /**
+     * Queues a command for the player; it is applied in the next tick. Commands for a player
+     * that has not joined by then are dropped.
+     */
+    public void submit(PlayerCommand command) {
+        Queue<PlayerCommand> commands = commandsByPlayer.get(command.getPlayerId());
+        if (commands != null) {
+            commands.add(command);
+            return;
+        }
+        synchronized (unrouted) {
+            // Checked again under the lock so a join cannot slip in between and reorder commands
+            commands = commandsByPlayer.get(command.getPlayerId());
+            if (commands == null) {
+                commands = unrouted.computeIfAbsent(command.getPlayerId(), id -> new ConcurrentLinkedQueue<>());
+            }
+            commands.add(command);
+        }
+    }
+
+    public void start() {
+        clock.scheduleAtFixedRate(this::runTickQuietly, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Runs one tick on the calling thread's behalf and returns when every shard has finished it.
+     */
+    public synchronized void runTick() {
+        long start = System.nanoTime();
+        long tick = tickCount + 1;
+        applyMembershipChanges();
+
+        List<Callable<Void>> tasks = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            tasks.add(() -> {
+                shard.run(tick);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : workers.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Shard failed during tick " + tick, e.getCause());
+        }
+
+        recordShardTimes();
+        rebalanceIfNeeded();
+
+        long duration = System.nanoTime() - start;
+        lastTickNanos = duration;
+        maxTickNanos = Math.max(maxTickNanos, duration);
+        if (duration > periodNanos) {
+            overrunCount++;
+        }
+        tickCount = tick;
+    }
+
+    public TickStats getStats() {
+        int[] sizes = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            sizes[i] = shards[i].size;
+        }
+        return new TickStats(tickCount, lastTickNanos, maxTickNanos, overrunCount, lastImbalance, rebalanceCount, sizes);
+    }
+
+    @Override
+    public void close() {
+        clock.shutdown();
+        try {
+            clock.awaitTermination(periodNanos * 2, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ownsWorkers) {
+            workers.shutdown();
+        }
+    }
+
+    private void runTickQuietly() {
+        try {
+            runTick();
+        } catch (RuntimeException e) {
+            // A scheduled task that throws is cancelled, so report and keep ticking
+            System.err.println("Tick failed: " + e.getMessage());
+        }
+    }
+
+    private void applyMembershipChanges() {
+        for (MembershipChange change = membershipChanges.poll(); change != null; change = membershipChanges.poll()) {
+            if (change.player == null) {
+                leave(change.playerId);
+            } else if (!shardByPlayer.containsKey(change.playerId)) {
+                join(change.player, change.inventory);
+            }
+        }
+        synchronized (unrouted) {
+            // Nobody joined for these in time
+            unrouted.clear();
+        }
+    }
+
+    private void join(Player player, Inventory inventory) {
+        Queue<PlayerCommand> commands;
+        synchronized (unrouted) {
+            // Commands submitted before the join keep their place ahead of later ones
+            commands = unrouted.remove(player.getId());
+            if (commands == null) {
+                commands = new ConcurrentLinkedQueue<>();
+            }
+            commandsByPlayer.put(player.getId(), commands);
+        }
+        place(smallestShard(), player, inventory, commands);
+    }
+
+    private void leave(int playerId) {
+        commandsByPlayer.remove(playerId);
+        Shard shard = shardByPlayer.remove(playerId);
+        if (shard != null) {
+            shard.players.remove(playerId);
+            shard.inventories.remove(playerId);
+            shard.commands.remove(playerId);
+            shard.size = shard.players.size();
+        }
+    }
+
+    private void recordShardTimes() {
+        long max = 0;
+        long total = 0;
+        for (Shard shard : shards) {
+            max = Math.max(max, shard.lastNanos);
+            total += shard.lastNanos;
+        }
+        double mean = (double) total / shards.length;
+        lastImbalance = mean == 0 ? 1.0 : max / mean;
+    }
+
+    /**
+     * Moves players from oversized shards to the smallest ones until every shard is near the mean.
+     */
+    private void rebalanceIfNeeded() {
+        int total = 0;
+        Shard largest = shards[0];
+        for (Shard shard : shards) {
+            total += shard.size;
+            if (shard.size > largest.size) {
+                largest = shard;
+            }
+        }
+        int mean = (total + shards.length - 1) / shards.length;
+        if (largest.size < MIN_REBALANCE_SIZE || largest.size <= mean * REBALANCE_THRESHOLD) {
+            return;
+        }
+        for (Shard shard : shards) {
+            Iterator<Map.Entry<Integer, Player>> players = shard.players.entrySet().iterator();
+            while (shard.players.size() > mean && players.hasNext()) {
+                Map.Entry<Integer, Player> entry = players.next();
+                Inventory inventory = shard.inventories.remove(entry.getKey());
+                Queue<PlayerCommand> commands = shard.commands.remove(entry.getKey());
+                players.remove();
+                shard.size = shard.players.size();
+                place(smallestShard(), entry.getValue(), inventory, commands);
+            }
+        }
+        rebalanceCount++;
+    }
+
+    private void place(Shard shard, Player player, Inventory inventory, Queue<PlayerCommand> commands) {
+        shard.players.put(player.getId(), player);
+        shard.inventories.put(player.getId(), inventory);
+        shard.commands.put(player.getId(), commands);
+        shard.size = shard.players.size();
+        shardByPlayer.put(player.getId(), shard);
+    }
+
+    private Shard smallestShard() {
+        Shard smallest = shards[0];
+        for (Shard shard : shards) {
+            if (shard.size < smallest.size) {
+                smallest = shard;
+            }
+        }
+        return smallest;
+    }
+
+    private final class Shard {
+        final Map<Integer, Player> players = new HashMap<>();
+        final Map<Integer, Inventory> inventories = new HashMap<>();
+        // Each player's own command queue; it travels with the player when shards are rebalanced
+        final Map<Integer, Queue<PlayerCommand>> commands = new HashMap<>();
+        // Players that had commands applied this tick, by id
+        final Map<Integer, Player> touched = new HashMap<>();
+        volatile int size;
+        volatile long lastNanos;
+
+        void run(long tick) {
+            long start = System.nanoTime();
+            // Every player first gets a fair share of the budget, then what is left goes in map order
+            int share = Math.max(1, MAX_COMMANDS_PER_SHARD / Math.max(1, commands.size()));
+            int budget = applyCommands(share, MAX_COMMANDS_PER_SHARD);
+            if (budget > 0) {
+                applyCommands(budget, budget);
+            }
+            // Readers see this tick's changes as one snapshot per player
+            if (updater != null) {
+                for (Player player : players.values()) {
+                    updater.update(player, inventories.get(player.getId()), tick);
+                    player.publishSnapshot();
+                }
+            } else {
+                for (Player player : touched.values()) {
+                    player.publishSnapshot();
+                }
+            }
+            touched.clear();
+            lastNanos = System.nanoTime() - start;
+        }
+
+        // Applies up to perPlayer queued commands of each player, at most budget in all; returns the budget left
+        private int applyCommands(int perPlayer, int budget) {
+            for (Map.Entry<Integer, Queue<PlayerCommand>> entry : commands.entrySet()) {
+                Queue<PlayerCommand> queue = entry.getValue();
+                if (queue.isEmpty()) {
+                    continue;
+                }
+                Player player = players.get(entry.getKey());
+                Inventory inventory = inventories.get(entry.getKey());
+                touched.put(entry.getKey(), player);
+                int limit = Math.min(perPlayer, budget);
+                PlayerCommand command;
+                for (int i = 0; i < limit && (command = queue.poll()) != null; i++) {
+                    command.apply(player, inventory);
+                    budget--;
+                }
+                if (budget == 0) {
+                    break; // The rest wait for the next tick, still in order
+                }
+            }
+            return budget;
+        }
+    }
+
+    // A join (player set) or a leave (player null)
+    private static final class MembershipChange {
+        final int playerId;
+        final Player player;
+        final Inventory inventory;
+
+        MembershipChange(int playerId, Player player, Inventory inventory) {
+            this.playerId = playerId;
+            this.player = player;
+            this.inventory = inventory;
+        }
+    }
+
+    /**
+     * Snapshot of tick timing and shard balance.
+     */
+    public static final class TickStats {
+        private final long tickCount;
+        private final long lastTickNanos;
+        private final long maxTickNanos;
+        private final long overrunCount;
+        private final double shardImbalance;
+        private final long rebalanceCount;
+        private final int[] shardSizes;
+
+        TickStats(long tickCount, long lastTickNanos, long maxTickNanos, long overrunCount,
+                  double shardImbalance, long rebalanceCount, int[] shardSizes) {
+            this.tickCount = tickCount;
+            this.lastTickNanos = lastTickNanos;
+            this.maxTickNanos = maxTickNanos;
+            this.overrunCount = overrunCount;
+            this.shardImbalance = shardImbalance;
+            this.rebalanceCount = rebalanceCount;
+            this.shardSizes = shardSizes;
+        }
+
+        public long getTickCount() { return tickCount; }
+        public long getLastTickNanos() { return lastTickNanos; }
+        public long getMaxTickNanos() { return maxTickNanos; }
+        public long getOverrunCount() { return overrunCount; }
+        /** Slowest shard time divided by mean shard time in the last tick; 1.0 is perfectly even */
+        public double getShardImbalance() { return shardImbalance; }
+        public long getRebalanceCount() { return rebalanceCount; }
+        public int[] getShardSizes() { return shardSizes.clone(); }
+
+        @Override
+        public String toString() {
+            return "TickStats{" +
+                    "tickCount=" + tickCount +
+                    ", lastTickMicros=" + lastTickNanos / 1000 +
+                    ", maxTickMicros=" + maxTickNanos / 1000 +
+                    ", overrunCount=" + overrunCount +
+                    ", shardImbalance=" + String.format("%.2f", shardImbalance) +
+                    ", rebalanceCount=" + rebalanceCount +
+                    ", shardSizes=" + Arrays.toString(shardSizes) +
+                    '}';
+        }
+    }
+}
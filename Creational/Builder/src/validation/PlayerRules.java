@@ -0,0 +1,229 @@
+package validation;
+
+import builders.BuilderData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import model.*;
+
+/**
+ * Declarative validation rules for player specs, compiled into flags and bitmasks.
+ *
+ * check() reports violations as a bit set of the constants below: no exceptions and no strings
+ * on the hot path. The allowed weapon types are precompiled into an int mask, so the weapon rule
+ * is one OR per weapon and a single AND. Messages are only built when asked for, e.g. by a
+ * builder's build() about to throw, or by a batch report.
+ */
+public final class PlayerRules {
+    public static final int NAME_MISSING = 1;
+    public static final int HEALTH_NOT_POSITIVE = 1 << 1;
+    public static final int TOO_FEW_WEAPONS = 1 << 2;
+    public static final int WEAPON_NOT_ALLOWED = 1 << 3;
+
+    // Bit for weapons without a type; never part of an allowed mask
+    private static final int UNTYPED_WEAPON_BIT = 1 << 31;
+
+    private final String subject;
+    private final boolean requireName;
+    private final boolean requirePositiveHealth;
+    private final int minWeapons;
+    private final int allowedWeaponMask;
+    private final String weaponTypeMessage;
+
+    private PlayerRules(Builder builder) {
+        this.subject = builder.subject;
+        this.requireName = builder.requireName;
+        this.requirePositiveHealth = builder.requirePositiveHealth;
+        this.minWeapons = builder.minWeapons;
+        this.allowedWeaponMask = builder.allowedWeaponMask;
+        this.weaponTypeMessage = builder.weaponTypeMessage;
+    }
+
+    public static Builder builder(String subject) {
+        return new Builder(subject);
+    }
+
+    /**
+     * Returns the violated rules as a bit set; 0 means the spec is valid.
+     */
+    public int check(BuilderData data) {
+        Integer health = data.getHealth();
+        // A missing health fails the health rule like a non-positive one
+        return check(data.getName(), health == null ? 0 : health, data.getWeapons());
+    }
+
+    /**
+     * Same as check(BuilderData), for builders that keep their fields as primitives (e.g. the generated ones).
+     */
+    public int check(String name, int health, List<Weapon> weapons) {
+        int violations = 0;
+        if (requireName && isBlank(name)) {
+            violations |= NAME_MISSING;
+        }
+        if (requirePositiveHealth && health <= 0) {
+            violations |= HEALTH_NOT_POSITIVE;
+        }
+        if (weapons.size() < minWeapons) {
+            violations |= TOO_FEW_WEAPONS;
+        }
+        if (allowedWeaponMask != -1) {
+            int owned = 0;
+            for (int i = 0; i < weapons.size(); i++) {
+                WeaponType type = weapons.get(i).getWeaponType();
+                owned |= type == null ? UNTYPED_WEAPON_BIT : 1 << type.ordinal();
+            }
+            if ((owned & ~allowedWeaponMask) != 0) {
+                violations |= WEAPON_NOT_ALLOWED;
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Throws IllegalStateException with the first violated rule's message; for builders' build().
+     */
+    public void validate(BuilderData data) {
+        int violations = check(data);
+        if (violations != 0) {
+            throw new IllegalStateException(message(Integer.lowestOneBit(violations)));
+        }
+    }
+
+    public void validate(String name, int health, List<Weapon> weapons) {
+        int violations = check(name, health, weapons);
+        if (violations != 0) {
+            throw new IllegalStateException(message(Integer.lowestOneBit(violations)));
+        }
+    }
+
+    /**
+     * Validates a whole batch in one pass. Invalid entries are reported by index, with lazy messages.
+     */
+    public Report checkAll(List<? extends BuilderData> batch) {
+        int[] violations = new int[batch.size()];
+        int invalid = 0;
+        for (int i = 0; i < violations.length; i++) {
+            violations[i] = check(batch.get(i));
+            if (violations[i] != 0) {
+                invalid++;
+            }
+        }
+        return new Report(violations, invalid);
+    }
+
+    /**
+     * Human-readable messages for a violation bit set, in rule order.
+     */
+    public List<String> messages(int violations) {
+        List<String> messages = new ArrayList<>(Integer.bitCount(violations));
+        for (int remaining = violations; remaining != 0; remaining &= remaining - 1) {
+            messages.add(message(Integer.lowestOneBit(remaining)));
+        }
+        return messages;
+    }
+
+    private String message(int violation) {
+        switch (violation) {
+            case NAME_MISSING:
+                return subject + " name cannot be null or empty";
+            case HEALTH_NOT_POSITIVE:
+                return subject + " health must be positive";
+            case TOO_FEW_WEAPONS:
+                return minWeapons == 1
+                        ? subject + "s must have at least one weapon"
+                        : subject + "s must have at least " + minWeapons + " weapons";
+            case WEAPON_NOT_ALLOWED:
+                return weaponTypeMessage;
+            default:
+                throw new IllegalArgumentException("Unknown violation: " + violation);
+        }
+    }
+
+    // Same rule as name.trim().isEmpty() without allocating the trimmed copy
+    private static boolean isBlank(String name) {
+        if (name == null) {
+            return true;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects rules fluently and compiles them into an immutable PlayerRules.
+     */
+    public static final class Builder {
+        private final String subject;
+        private boolean requireName;
+        private boolean requirePositiveHealth;
+        private int minWeapons;
+        private int allowedWeaponMask = -1;
+        private String weaponTypeMessage;
+
+        private Builder(String subject) {
+            this.subject = subject;
+        }
+
+        public Builder requireName() {
+            this.requireName = true;
+            return this;
+        }
+
+        public Builder requirePositiveHealth() {
+            this.requirePositiveHealth = true;
+            return this;
+        }
+
+        public Builder minWeapons(int minWeapons) {
+            this.minWeapons = minWeapons;
+            return this;
+        }
+
+        public Builder allowWeapons(Set<WeaponType> allowed, String message) {
+            int mask = 0;
+            for (WeaponType type : allowed) {
+                mask |= 1 << type.ordinal();
+            }
+            this.allowedWeaponMask = mask;
+            this.weaponTypeMessage = message;
+            return this;
+        }
+
+        public PlayerRules compile() {
+            return new PlayerRules(this);
+        }
+    }
+
+    /**
+     * Result of checkAll: the violation bit set of every entry, in input order.
+     */
+    public final class Report {
+        private final int[] violations;
+        private final int invalidCount;
+
+        Report(int[] violations, int invalidCount) {
+            this.violations = violations;
+            this.invalidCount = invalidCount;
+        }
+
+        public boolean isValid(int index) {
+            return violations[index] == 0;
+        }
+
+        public int getViolations(int index) {
+            return violations[index];
+        }
+
+        public int getInvalidCount() {
+            return invalidCount;
+        }
+
+        public List<String> getMessages(int index) {
+            return violations[index] == 0 ? Collections.emptyList() : messages(violations[index]);
+        }
+    }
+}
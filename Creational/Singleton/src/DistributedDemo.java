@@ -0,0 +1,98 @@
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Demonstration of ThreadPoolManager's distributed mode on one machine.
+ *
+ * Starts a coordinator, launches worker JVMs on localhost with this program's classpath,
+ * estimates pi with a batch of Monte Carlo tasks spread over them, and kills one worker
+ * part-way through to show its tasks being dispatched to the others.
+ *
+ * Usage: java DistributedDemo [workers] [threadsPerWorker]
+ */
+public class DistributedDemo {
+    private static final int TASKS = 400;
+    private static final long SAMPLES_PER_TASK = 2_000_000;
+
+    // Counts random points of the unit square that fall inside the quarter circle
+    static final class MonteCarloPiTask implements RemoteTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final long seed;
+        private final long samples;
+
+        MonteCarloPiTask(long seed, long samples) {
+            this.seed = seed;
+            this.samples = samples;
+        }
+
+        @Override
+        public Long call() {
+            SplittableRandom random = new SplittableRandom(seed);
+            long inside = 0;
+            for (long i = 0; i < samples; i++) {
+                double x = random.nextDouble();
+                double y = random.nextDouble();
+                if (x * x + y * y <= 1.0) {
+                    inside++;
+                }
+            }
+            return inside;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int workerCount = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int threadsPerWorker = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+        System.out.println("=== Distributed ThreadPoolManager Demo ===\n");
+        ThreadPoolManager manager = ThreadPoolManager.getInstance();
+        TaskCoordinator coordinator = manager.startCoordinator(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        System.out.println("Coordinator listening on " + coordinator.getAddress());
+
+        List<Process> workers = new ArrayList<>();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "TaskWorker",
+                    coordinator.getAddress(), String.valueOf(threadsPerWorker)).inheritIO().start());
+        }
+        while (coordinator.getWorkerCount() < workerCount) {
+            Thread.sleep(50);
+        }
+        System.out.println(workerCount + " workers connected, " + threadsPerWorker + " threads each");
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            results.add(manager.submitRemote(new MonteCarloPiTask(i, SAMPLES_PER_TASK)));
+        }
+
+        // Take one worker down once a quarter of the batch is done
+        if (workerCount > 1) {
+            while (results.stream().filter(CompletableFuture::isDone).count() < TASKS / 4) {
+                Thread.sleep(10);
+            }
+            System.out.println("Killing one worker with " + coordinator.getQueuedCount() + " tasks still queued");
+            workers.get(0).destroyForcibly();
+        }
+
+        long inside = 0;
+        for (CompletableFuture<Long> result : results) {
+            inside += result.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("pi ~ %.6f from %d samples in %.2f s (%.0f tasks/s)",
+                4.0 * inside / (TASKS * SAMPLES_PER_TASK), TASKS * SAMPLES_PER_TASK, seconds, TASKS / seconds));
+        System.out.println("Tasks re-dispatched after worker loss: " + coordinator.getRedispatchCount());
+
+        manager.shutdown();
+        for (Process worker : workers) {
+            worker.waitFor();
+        }
+        System.out.println("\n=== Distributed Demo Complete ===");
+    }
+}
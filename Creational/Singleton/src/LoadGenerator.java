@@ -0,0 +1,204 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the ThreadPoolManager singleton.
+ *
+ * Tasks are submitted on a fixed schedule (one every 1/rate seconds) whether or not earlier
+ * tasks have finished, the way independent users arrive. If the pool falls behind, the
+ * generator does not slow down with it: late submissions are made at once to catch up.
+ *
+ * Latency is measured from each task's intended start on the schedule to its completion,
+ * so time a request spends waiting because the system (or the generator) was stalled is
+ * counted instead of silently omitted. Service time (actual start to completion) is recorded
+ * separately; the gap between the two histograms is queueing delay.
+ */
+public class LoadGenerator {
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final ThreadPoolManager manager;
+    private final Runnable workload;
+
+    public LoadGenerator(ThreadPoolManager manager, Runnable workload) {
+        if (manager == null || workload == null) {
+            throw new IllegalArgumentException("Manager and workload cannot be null");
+        }
+        this.manager = manager;
+        this.workload = workload;
+    }
+
+    /**
+     * Runs the workload at a fixed arrival rate for the given time, then waits for submitted tasks to finish.
+     */
+    public StepResult run(double ratePerSecond, long durationMillis) {
+        if (ratePerSecond <= 0 || durationMillis <= 0) {
+            throw new IllegalArgumentException("Rate and duration must be positive");
+        }
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long tasks = Math.max(1, (long) (ratePerSecond * durationMillis / 1000));
+        LatencyHistogram latency = new LatencyHistogram();
+        LatencyHistogram serviceTime = new LatencyHistogram();
+        AtomicLong completed = new AtomicLong();
+        AtomicLong lastCompletion = new AtomicLong();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < tasks; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            manager.executeTask(() -> {
+                long began = System.nanoTime();
+                try {
+                    workload.run();
+                } finally {
+                    long finished = System.nanoTime();
+                    latency.record(finished - intendedStart);
+                    serviceTime.record(finished - began);
+                    lastCompletion.accumulateAndGet(finished, Math::max);
+                    completed.incrementAndGet();
+                }
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (completed.get() < tasks && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        long done = completed.get();
+        long elapsed = Math.max(1, (done == 0 ? System.nanoTime() : lastCompletion.get()) - start);
+        return new StepResult(ratePerSecond, tasks, done, done * 1e9 / elapsed, latency, serviceTime);
+    }
+
+    /**
+     * Runs steps at increasing rates (startRate, startRate * factor, ...) until the pool saturates:
+     * it completes less than 90% of the offered rate, or the 99th percentile latency exceeds the limit.
+     */
+    public SweepResult sweep(double startRate, double factor, int maxSteps, long stepMillis, long p99LimitNanos) {
+        if (factor <= 1 || maxSteps <= 0) {
+            throw new IllegalArgumentException("Factor must be above 1 and steps positive");
+        }
+        List<StepResult> steps = new ArrayList<>();
+        double rate = startRate;
+        for (int i = 0; i < maxSteps; i++) {
+            StepResult step = run(rate, stepMillis);
+            steps.add(step);
+            if (step.isSaturated(p99LimitNanos)) {
+                return new SweepResult(steps, step);
+            }
+            rate *= factor;
+        }
+        return new SweepResult(steps, null);
+    }
+
+    // Result of one fixed-rate step
+    public static class StepResult {
+        private static final double SATURATION_THROUGHPUT_RATIO = 0.9;
+
+        private final double targetRate;
+        private final long submitted;
+        private final long completed;
+        private final double achievedRate;
+        private final LatencyHistogram latency;
+        private final LatencyHistogram serviceTime;
+
+        StepResult(double targetRate, long submitted, long completed, double achievedRate,
+                   LatencyHistogram latency, LatencyHistogram serviceTime) {
+            this.targetRate = targetRate;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.achievedRate = achievedRate;
+            this.latency = latency;
+            this.serviceTime = serviceTime;
+        }
+
+        public boolean isSaturated(long p99LimitNanos) {
+            return completed < submitted
+                    || achievedRate < targetRate * SATURATION_THROUGHPUT_RATIO
+                    || latency.getValueAtPercentile(99) > p99LimitNanos;
+        }
+
+        public double getTargetRate() {
+            return targetRate;
+        }
+
+        public double getAchievedRate() {
+            return achievedRate;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        // Intended start to completion
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        // Actual start to completion
+        public LatencyHistogram getServiceTime() {
+            return serviceTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%10.0f %10.0f %10.3f %10.3f %10.3f %10.3f %10.3f",
+                    targetRate, achievedRate,
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+                    millis(latency.getValueAtPercentile(99.9)), millis(latency.getMaxNanos()),
+                    millis(serviceTime.getValueAtPercentile(99)));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    // All steps of a sweep, and the first step at which the pool saturated (null if none did)
+    public static class SweepResult {
+        private final List<StepResult> steps;
+        private final StepResult saturation;
+
+        SweepResult(List<StepResult> steps, StepResult saturation) {
+            this.steps = steps;
+            this.saturation = saturation;
+        }
+
+        public List<StepResult> getSteps() {
+            return steps;
+        }
+
+        public StepResult getSaturation() {
+            return saturation;
+        }
+
+        // Highest offered rate that was sustained, or 0 if even the first step saturated
+        public double getMaxSustainedRate() {
+            double max = 0;
+            for (StepResult step : steps) {
+                if (step != saturation) {
+                    max = Math.max(max, step.getTargetRate());
+                }
+            }
+            return max;
+        }
+
+        public void print() {
+            System.out.println("  Latency in ms, measured from intended start (service = actual start to completion)");
+            System.out.println(String.format("  %10s %10s %10s %10s %10s %10s %10s",
+                    "target/s", "achieved/s", "p50", "p99", "p99.9", "max", "service p99"));
+            for (StepResult step : steps) {
+                System.out.println("  " + step + (step == saturation ? "  <- saturated" : ""));
+            }
+            System.out.println("  Max sustained rate: " + String.format("%.0f", getMaxSustainedRate()) + " tasks/s");
+        }
+    }
+}
@@ -6,6 +6,7 @@
  * 2. Lazy initialization
  * 3. Prevention of cloning
  * 4. Practical use case with thread pool management
+ * 5. Open-loop load testing of the shared pool
  */
 public class Main {
     public static void main(String[] args) {
@@ -27,6 +28,10 @@ public class Main {
         System.out.println("4. Singleton Constraints:");
         demonstrateSingletonConstraints();
 
+        // 5. Measure the pool under load
+        System.out.println("5. Load Test (open loop):");
+        demonstrateLoadTest();
+
         // Clean up
         ThreadPoolManager.getInstance().shutdown();
         System.out.println("\n=== Singleton Demo Complete ===");
@@ -165,4 +170,21 @@ public class Main {
         System.out.println("✓ Prevention of multiple instances");
         System.out.println();
     }
+
+    private static void demonstrateLoadTest() {
+        ThreadPoolManager manager = ThreadPoolManager.getInstance();
+
+        // Each task burns about half a millisecond of CPU, like a small request handler
+        LoadGenerator generator = new LoadGenerator(manager, () -> {
+            long end = System.nanoTime() + 500_000;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+        });
+
+        System.out.println("Doubling the arrival rate each second until the pool saturates...");
+        LoadGenerator.SweepResult result = generator.sweep(250, 2, 7, 1000, 50_000_000L);
+        result.print();
+        System.out.println();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,208 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+/**
+ * Messages exchanged between TaskCoordinator and TaskWorker, sent with Java serialization.
+ *
+ * A worker opens with Hello, announcing how many tasks it accepts at once (its credits).
+ * The coordinator sends Dispatch batches only while it holds credits for that worker, and
+ * every Results batch returns one credit per result. Workers send a Heartbeat when they have
+ * had nothing else to send for HEARTBEAT_INTERVAL_MILLIS.
+ *
+ * Protocol streams only accept these message classes, ArrayList and byte[] (see
+ * objectInput()), but tasks and results inside them are arbitrary serialized objects from the
+ * peer. Bind the coordinator to a loopback address or a Unix-domain socket, never to an
+ * address reachable by untrusted hosts.
+ */
+final class RemoteProtocol {
+    static final long HEARTBEAT_INTERVAL_MILLIS = 500;
+    // A worker silent for this long is presumed dead and its tasks are dispatched again
+    static final long HEARTBEAT_TIMEOUT_MILLIS = 3000;
+    static final int MAX_BATCH = 64;
+
+    // Classes a protocol stream may contain; anything else is rejected before it is instantiated.
+    // java.lang.Object covers the Object[] that ArrayList checks while reading its elements.
+    private static final ObjectInputFilter PROTOCOL_FILTER = ObjectInputFilter.Config.createFilter(
+            "RemoteProtocol$*;java.util.ArrayList;java.lang.Object;maxdepth=8;!*");
+
+    private RemoteProtocol() {}
+
+    /**
+     * Parses "tcp:host:port" or "unix:/path/to/socket".
+     */
+    static SocketAddress parseAddress(String address) {
+        if (address.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(address.substring("unix:".length()));
+        }
+        if (address.startsWith("tcp:")) {
+            String hostPort = address.substring("tcp:".length());
+            int colon = hostPort.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Missing port in " + address);
+            }
+            return new InetSocketAddress(hostPort.substring(0, colon), Integer.parseInt(hostPort.substring(colon + 1)));
+        }
+        throw new IllegalArgumentException("Address must start with tcp: or unix: - " + address);
+    }
+
+    static String formatAddress(SocketAddress address) {
+        if (address instanceof UnixDomainSocketAddress) {
+            return "unix:" + ((UnixDomainSocketAddress) address).getPath();
+        }
+        InetSocketAddress inet = (InetSocketAddress) address;
+        InetAddress host = inet.getAddress();
+        return "tcp:" + (host != null ? host.getHostAddress() : inet.getHostString()) + ":" + inet.getPort();
+    }
+
+    /*
+     * Tasks and results are serialized to bytes by their sender before they are batched, so an
+     * object that cannot be serialized (or deserialized) fails only its own task, never the
+     * message it would have travelled in or the connection.
+     */
+    static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * Object stream for reading protocol messages from a peer, restricted to the protocol's classes.
+     */
+    static ObjectInputStream objectInput(SocketChannel channel) throws IOException {
+        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(inputStream(channel)));
+        in.setObjectInputFilter(PROTOCOL_FILTER);
+        return in;
+    }
+
+    /*
+     * Streams over a socket channel. Channels.newInputStream/newOutputStream are not used because
+     * on JDK 17 they share the channel's blocking lock, so a blocked read would stall every write
+     * (including heartbeats); a SocketChannel itself allows one reader and one writer at a time.
+     */
+    static InputStream inputStream(SocketChannel channel) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                return channel.read(ByteBuffer.wrap(bytes, offset, length));
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    static OutputStream outputStream(SocketChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    static final class Hello implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final String workerName;
+        final int credits;
+
+        Hello(String workerName, int credits) {
+            this.workerName = workerName;
+            this.credits = credits;
+        }
+    }
+
+    static final class Envelope implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final long taskId;
+        // The serialized RemoteTask
+        final byte[] task;
+
+        Envelope(long taskId, byte[] task) {
+            this.taskId = taskId;
+            this.task = task;
+        }
+    }
+
+    static final class Dispatch implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final List<Envelope> tasks;
+
+        Dispatch(List<Envelope> tasks) {
+            this.tasks = tasks;
+        }
+    }
+
+    // Outcome of one task: the serialized value, or the failure's description
+    static final class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final long taskId;
+        final byte[] value;
+        final String error;
+
+        Result(long taskId, byte[] value, String error) {
+            this.taskId = taskId;
+            this.value = value;
+            this.error = error;
+        }
+    }
+
+    static final class Results implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final List<Result> results;
+
+        Results(List<Result> results) {
+            this.results = results;
+        }
+    }
+
+    static final class Heartbeat implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+}
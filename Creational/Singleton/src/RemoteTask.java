@@ -0,0 +1,11 @@
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+
+/**
+ * A task that can be shipped to a worker process by TaskCoordinator.
+ * The task and its result travel by Java serialization, so both must be Serializable and the
+ * task's class must be on the worker's classpath.
+ */
+@FunctionalInterface
+public interface RemoteTask<V extends Serializable> extends Callable<V>, Serializable {
+}
@@ -0,0 +1,316 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coordinator side of ThreadPoolManager's distributed mode.
+ *
+ * Worker processes (see TaskWorker) connect over TCP or a Unix-domain socket. Submitted tasks
+ * wait in one shared queue; each connected worker has a sender thread that takes tasks from
+ * it in batches of up to MAX_BATCH, but only as many as the worker has credits for, so a
+ * worker is never sent more than it can hold and fast workers naturally take more of the work.
+ *
+ * A worker that disconnects or misses heartbeats for HEARTBEAT_TIMEOUT_MILLIS is dropped, and
+ * every task it had not answered goes back to the front of the queue for the other workers.
+ * A task can therefore run more than once; its future completes with the first result.
+ *
+ * Tasks are serialized on submit() and results on the worker, so an object that cannot be
+ * serialized fails only its own future and never a batch or a worker connection.
+ */
+public class TaskCoordinator implements Closeable {
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+    private final LinkedBlockingDeque<RemoteProtocol.Envelope> queue = new LinkedBlockingDeque<>();
+    private final Map<Long, CompletableFuture<Object>> pending = new ConcurrentHashMap<>();
+    private final List<WorkerConnection> workers = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextTaskId = new AtomicLong();
+    private final AtomicLong redispatched = new AtomicLong();
+    private final AtomicLong workerIds = new AtomicLong();
+    private volatile boolean closed;
+
+    private TaskCoordinator(ServerSocketChannel server) throws IOException {
+        this.server = server;
+        this.address = server.getLocalAddress();
+        startThread("coordinator-accept", this::acceptLoop);
+        startThread("coordinator-watchdog", this::watchdogLoop);
+    }
+
+    /**
+     * Listens for workers at the address; a TCP port of 0 picks a free port (see getAddress()).
+     */
+    public static TaskCoordinator start(SocketAddress address) throws IOException {
+        ServerSocketChannel server;
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        server.bind(address);
+        return new TaskCoordinator(server);
+    }
+
+    /**
+     * Queues the task for the next worker with free credits. The task is serialized here, so a
+     * task that cannot be serialized fails its future at once and is never sent.
+     */
+    @SuppressWarnings("unchecked")
+    public <V extends Serializable> CompletableFuture<V> submit(RemoteTask<V> task) {
+        if (closed) {
+            throw new IllegalStateException("Coordinator is closed");
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        byte[] bytes;
+        try {
+            bytes = RemoteProtocol.serialize(task);
+        } catch (IOException e) {
+            future.completeExceptionally(new RemoteTaskException("Task cannot be serialized: " + e));
+            return (CompletableFuture<V>) (CompletableFuture<?>) future;
+        }
+        long taskId = nextTaskId.incrementAndGet();
+        pending.put(taskId, future);
+        queue.add(new RemoteProtocol.Envelope(taskId, bytes));
+        return (CompletableFuture<V>) (CompletableFuture<?>) future;
+    }
+
+    public <V extends Serializable> List<CompletableFuture<V>> submitAll(Collection<? extends RemoteTask<V>> tasks) {
+        List<CompletableFuture<V>> futures = new ArrayList<>(tasks.size());
+        for (RemoteTask<V> task : tasks) {
+            futures.add(submit(task));
+        }
+        return futures;
+    }
+
+    /**
+     * The address workers should connect to, as accepted by TaskWorker ("tcp:host:port" or "unix:path").
+     */
+    public String getAddress() {
+        return RemoteProtocol.formatAddress(address);
+    }
+
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    // Tasks sent again after the worker running them was lost
+    public long getRedispatchCount() {
+        return redispatched.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (WorkerConnection worker : workers) {
+            worker.fail();
+        }
+        for (CompletableFuture<Object> future : pending.values()) {
+            future.completeExceptionally(new IllegalStateException("Coordinator closed"));
+        }
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                SocketChannel channel = server.accept();
+                WorkerConnection worker = new WorkerConnection(channel, workerIds.incrementAndGet());
+                workers.add(worker);
+                startThread("coordinator-reader-" + worker.id, worker::readLoop);
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Failed to accept worker: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void watchdogLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(RemoteProtocol.HEARTBEAT_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (WorkerConnection worker : workers) {
+                if (now - worker.lastSeen > RemoteProtocol.HEARTBEAT_TIMEOUT_MILLIS) {
+                    System.err.println("Worker " + worker.name + " missed heartbeats, re-dispatching its tasks");
+                    worker.fail();
+                }
+            }
+        }
+    }
+
+    private static Thread startThread(String name, Runnable body) {
+        Thread thread = new Thread(body, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private final class WorkerConnection {
+        final long id;
+        final SocketChannel channel;
+        final Semaphore credits = new Semaphore(0);
+        // Tasks sent to this worker and not yet answered
+        final Map<Long, RemoteProtocol.Envelope> inFlight = new ConcurrentHashMap<>();
+        volatile String name;
+        volatile long lastSeen = System.currentTimeMillis();
+        volatile boolean failed;
+        private ObjectOutputStream out;
+        private Thread sender;
+
+        WorkerConnection(SocketChannel channel, long id) {
+            this.channel = channel;
+            this.id = id;
+            this.name = "#" + id;
+        }
+
+        void readLoop() {
+            try {
+                out = new ObjectOutputStream(new BufferedOutputStream(RemoteProtocol.outputStream(channel)));
+                out.flush();
+                ObjectInputStream in = RemoteProtocol.objectInput(channel);
+                RemoteProtocol.Hello hello = (RemoteProtocol.Hello) in.readObject();
+                name = hello.workerName;
+                credits.release(hello.credits);
+                sender = startThread("coordinator-sender-" + id, this::sendLoop);
+                while (!failed) {
+                    Object message = in.readObject();
+                    lastSeen = System.currentTimeMillis();
+                    if (message instanceof RemoteProtocol.Results) {
+                        List<RemoteProtocol.Result> results = ((RemoteProtocol.Results) message).results;
+                        for (RemoteProtocol.Result result : results) {
+                            inFlight.remove(result.taskId);
+                            complete(result);
+                        }
+                        credits.release(results.size());
+                    }
+                }
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                if (!failed && !closed) {
+                    System.err.println("Lost worker " + name + ": " + e);
+                }
+            } finally {
+                fail();
+            }
+        }
+
+        void sendLoop() {
+            try {
+                while (!failed) {
+                    credits.acquire();
+                    RemoteProtocol.Envelope first = queue.take();
+                    List<RemoteProtocol.Envelope> batch = new ArrayList<>();
+                    batch.add(first);
+                    while (batch.size() < RemoteProtocol.MAX_BATCH && credits.tryAcquire()) {
+                        RemoteProtocol.Envelope next = queue.poll();
+                        if (next == null) {
+                            credits.release();
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    for (RemoteProtocol.Envelope envelope : batch) {
+                        inFlight.put(envelope.taskId, envelope);
+                    }
+                    if (failed) {
+                        // fail() may have run before these were recorded; requeue whatever it missed
+                        requeueInFlight();
+                        return;
+                    }
+                    out.writeObject(new RemoteProtocol.Dispatch(batch));
+                    out.flush();
+                    // Forget already-written objects so the stream does not keep every task alive
+                    out.reset();
+                }
+            } catch (InterruptedException e) {
+                // fail() interrupts the sender
+            } catch (IOException e) {
+                fail();
+            }
+        }
+
+        void fail() {
+            synchronized (this) {
+                if (failed) {
+                    return;
+                }
+                failed = true;
+            }
+            workers.remove(this);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already broken
+            }
+            if (sender != null) {
+                sender.interrupt();
+            }
+            requeueInFlight();
+        }
+
+        private void requeueInFlight() {
+            for (Long taskId : new ArrayList<>(inFlight.keySet())) {
+                RemoteProtocol.Envelope envelope = inFlight.remove(taskId);
+                if (envelope != null && pending.containsKey(taskId)) {
+                    redispatched.incrementAndGet();
+                    queue.addFirst(envelope);
+                }
+            }
+        }
+    }
+
+    private void complete(RemoteProtocol.Result result) {
+        CompletableFuture<Object> future = pending.remove(result.taskId);
+        if (future == null) {
+            return; // Already answered by another worker
+        }
+        if (result.error != null) {
+            future.completeExceptionally(new RemoteTaskException(result.error));
+            return;
+        }
+        try {
+            future.complete(RemoteProtocol.deserialize(result.value));
+        } catch (IOException | ClassNotFoundException e) {
+            future.completeExceptionally(new RemoteTaskException("Result cannot be deserialized: " + e));
+        }
+    }
+
+    /**
+     * Thrown (as the cause of the future's failure) when a task failed on its worker.
+     */
+    public static class RemoteTaskException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public RemoteTaskException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker process for ThreadPoolManager's distributed mode.
+ *
+ * Connects to a TaskCoordinator, runs the tasks it is sent on this JVM's ThreadPoolManager,
+ * and sends results back in batches. Results and heartbeats go out on one sender thread,
+ * so a busy worker's results double as its heartbeat. The worker exits when the coordinator
+ * closes the connection.
+ *
+ * Usage: java TaskWorker tcp:127.0.0.1:9000 [threads]   or   java TaskWorker unix:/tmp/tasks.sock [threads]
+ */
+public class TaskWorker {
+    // Credits per pool thread: one task running and one waiting, so a thread never idles between batches
+    private static final int CREDITS_PER_THREAD = 2;
+
+    private final SocketAddress coordinator;
+    private final int threads;
+    private final LinkedBlockingQueue<RemoteProtocol.Result> results = new LinkedBlockingQueue<>();
+
+    public TaskWorker(SocketAddress coordinator, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        this.coordinator = coordinator;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java TaskWorker <tcp:host:port | unix:path> [threads]");
+            System.exit(2);
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        new TaskWorker(RemoteProtocol.parseAddress(args[0]), threads).run();
+    }
+
+    /**
+     * Serves the coordinator until it disconnects.
+     */
+    public void run() throws IOException {
+        ThreadPoolManager pool = ThreadPoolManager.getInstance(threads);
+        try (SocketChannel channel = SocketChannel.open(coordinator)) {
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(RemoteProtocol.outputStream(channel)));
+            out.writeObject(new RemoteProtocol.Hello(ManagementFactory.getRuntimeMXBean().getName(),
+                    threads * CREDITS_PER_THREAD));
+            out.flush();
+            ObjectInputStream in = RemoteProtocol.objectInput(channel);
+
+            Thread sender = new Thread(() -> sendLoop(out), "worker-sender");
+            sender.setDaemon(true);
+            sender.start();
+
+            while (true) {
+                Object message;
+                try {
+                    message = in.readObject();
+                } catch (IOException e) {
+                    break; // Coordinator went away
+                }
+                if (message instanceof RemoteProtocol.Dispatch) {
+                    for (RemoteProtocol.Envelope envelope : ((RemoteProtocol.Dispatch) message).tasks) {
+                        pool.executeTask(() -> results.add(execute(envelope)));
+                    }
+                }
+            }
+            sender.interrupt();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Coordinator sent an unknown message class", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Runs one task; failures to deserialize the task or serialize its result are reported as that task's error
+    private static RemoteProtocol.Result execute(RemoteProtocol.Envelope envelope) {
+        RemoteTask<?> task;
+        try {
+            task = (RemoteTask<?>) RemoteProtocol.deserialize(envelope.task);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            return new RemoteProtocol.Result(envelope.taskId, null, "Task cannot be deserialized: " + e);
+        }
+        Serializable value;
+        try {
+            value = task.call();
+        } catch (Throwable e) {
+            // Errors too: an unanswered task would hold its worker's credit and never be re-dispatched
+            return new RemoteProtocol.Result(envelope.taskId, null, e.toString());
+        }
+        try {
+            return new RemoteProtocol.Result(envelope.taskId, RemoteProtocol.serialize(value), null);
+        } catch (IOException e) {
+            return new RemoteProtocol.Result(envelope.taskId, null, "Result cannot be serialized: " + e);
+        }
+    }
+
+    private void sendLoop(ObjectOutputStream out) {
+        List<RemoteProtocol.Result> batch = new ArrayList<>();
+        try {
+            while (true) {
+                RemoteProtocol.Result first = results.poll(RemoteProtocol.HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    out.writeObject(new RemoteProtocol.Heartbeat());
+                } else {
+                    batch.add(first);
+                    results.drainTo(batch, RemoteProtocol.MAX_BATCH - 1);
+                    out.writeObject(new RemoteProtocol.Results(new ArrayList<>(batch)));
+                    batch.clear();
+                }
+                out.flush();
+                out.reset();
+            }
+        } catch (InterruptedException | IOException e) {
+            // Connection closed; run() notices on its next read
+        }
+    }
+}
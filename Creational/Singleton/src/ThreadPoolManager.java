@@ -1,19 +1,32 @@
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.SocketAddress;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ThreadPoolManager {
+    private static final int SHARD_TASKS_PER_DRAIN = 256;
     private static volatile ThreadPoolManager instance;
     private int threadCount;
     private final ExecutorService threadPool;
     private BlockingQueue<Runnable> blockingTaskQueue;
+    private volatile TaskCoordinator coordinator;
+    private final ShardLane[] shardLanes;
 
 
     private ThreadPoolManager(int threadCount) {
         this.threadCount = threadCount;
         this.threadPool = Executors.newFixedThreadPool(threadCount);
         this.blockingTaskQueue = new LinkedBlockingQueue<>();
+        this.shardLanes = new ShardLane[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            shardLanes[i] = new ShardLane();
+        }
     }
 
     // default constructor
@@ -67,6 +80,38 @@ public class ThreadPoolManager {
         threadPool.submit(task);
     }
 
+    /**
+     * Runs the task on the lane for this shard. Tasks for the same shard run one at a time, in
+     * submission order, so state owned by a shard needs no locking; different shards run in
+     * parallel on the pool's threads.
+     */
+    public void executeOnShard(int shard, Runnable task) {
+        shardLanes[Math.floorMod(shard, shardLanes.length)].execute(task);
+    }
+
+    /**
+     * Switches on distributed mode: worker processes started with TaskWorker connect to the
+     * address, and tasks given to submitRemote() run on them instead of this JVM's pool.
+     */
+    public synchronized TaskCoordinator startCoordinator(SocketAddress address) throws IOException {
+        if (coordinator == null) {
+            coordinator = TaskCoordinator.start(address);
+        }
+        return coordinator;
+    }
+
+    public <V extends Serializable> CompletableFuture<V> submitRemote(RemoteTask<V> task) {
+        TaskCoordinator current = coordinator;
+        if (current == null) {
+            throw new IllegalStateException("Distributed mode is not started; call startCoordinator() first");
+        }
+        return current.submit(task);
+    }
+
+    public TaskCoordinator getCoordinator() {
+        return coordinator;
+    }
+
     public int getThreadCount() {
         return threadCount;
     }
@@ -81,15 +126,63 @@ public class ThreadPoolManager {
 
     public void shutdown() {
         threadPool.shutdown();
+        closeCoordinator();
         System.out.println("ThreadPoolManager shutdown initiated");
     }
 
     public void shutdownNow() {
         threadPool.shutdownNow();
         blockingTaskQueue.clear();
+        closeCoordinator();
         System.out.println("ThreadPoolManager force shutdown completed");
     }
 
+    private synchronized void closeCoordinator() {
+        if (coordinator != null) {
+            try {
+                coordinator.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close coordinator: " + e.getMessage());
+            }
+            coordinator = null;
+        }
+    }
+
+    // Serial task queue on top of the shared pool: at most one drain task per lane is queued or running
+    private class ShardLane {
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                threadPool.submit(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Runnable task;
+                // Bounded so a busy lane gives its thread back to other lanes now and then
+                for (int i = 0; i < SHARD_TASKS_PER_DRAIN && (task = tasks.poll()) != null; i++) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Shard task failed: " + e);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                // A task may have been added after the last poll but before the flag was cleared
+                schedule();
+            }
+        }
+    }
+
     // Prevent cloning
     @Override
     protected Object clone() throws CloneNotSupportedException {